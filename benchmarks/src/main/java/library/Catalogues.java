@@ -0,0 +1,101 @@
+package library;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+//Класс Catalogues генерирует тестовые каталоги в формате файлов-примеров (id;название;автор;год;жанр)
+//Файлы кешируются во временной папке, чтобы не генерировать их заново в каждом fork
+final class Catalogues {
+    static final String[] GENRES = {"Антиутопия", "Любовный роман", "Магический реализм", "Поэма", "Притча",
+            "Психологический роман", "Роман", "Роман в стихах", "Роман воспитания", "Социальный роман",
+            "Фантастика", "Философский роман", "Фэнтези"};
+    private static final String[] FIRST_NAMES = {"Лев", "Федор", "Михаил", "Александр", "Иван", "Николай",
+            "Джордж", "Харпер", "Джон", "Джейн", "Джоан", "Оскар", "Эрих", "Антуан", "Габриэль", "Грегори",
+            "Анна", "Мария", "Сергей", "Владимир"};
+    private static final String[] LAST_NAMES = {"Толстой", "Достоевский", "Булгаков", "Пушкин", "Тургенев",
+            "Лермонтов", "Гоголь", "Оруэлл", "Ли", "Толкин", "Остин", "Роулинг", "Фицджеральд", "Сэлинджер",
+            "Уайльд", "Ремарк", "Маркес", "Робертс", "Чехов", "Бунин", "Куприн", "Набоков", "Пастернак",
+            "Шолохов", "Солженицын"};
+    private static final String[] WORDS = {"война", "мир", "преступление", "наказание", "мастер", "маргарита",
+            "отцы", "дети", "герой", "время", "мертвые", "души", "идиот", "братья", "повелитель", "мух",
+            "гордость", "предубеждение", "тень", "горы", "сто", "лет", "одиночества", "над", "пропастью",
+            "во", "ржи", "портрет", "три", "товарища", "маленький", "принц", "великий", "гэтсби", "вишневый", "сад"};
+
+    //Константа, которой генератор начинает годы (годы распределены от 1800 до 2024)
+    static final int FIRST_YEAR = 1800;
+    static final int YEARS = 225;
+
+    private Catalogues() {
+    }
+
+    //Метод textFile возвращает путь к текстовому каталогу из size книг (создает его при первом обращении)
+    static Path textFile(int size) throws IOException {
+        Path file = Paths.get(System.getProperty("java.io.tmpdir"), "library-bench-" + size + ".txt");
+        return generate(file, 1, size, 42);
+    }
+
+    //Метод mergeFile возвращает путь к файлу из size новых книг для загрузки в библиотеку из каталога textFile(librarySize):
+    //id и номера в названиях продолжают каталог, поэтому ни одна книга файла не является дубликатом
+    static Path mergeFile(int librarySize, int size) throws IOException {
+        Path file = Paths.get(System.getProperty("java.io.tmpdir"), "library-merge-" + librarySize + "-" + size + ".txt");
+        return generate(file, librarySize + 1, size, 43);
+    }
+
+    private static Path generate(Path file, int firstId, int size, long seed) throws IOException {
+        if (Files.exists(file)) {
+            return file;
+        }
+        Path temp = Files.createTempFile(file.getParent(), "library-bench-", ".tmp");
+        Random random = new Random(seed);
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            StringBuilder line = new StringBuilder();
+            for (int id = firstId; id < firstId + size; id++) {
+                line.setLength(0);
+                line.append(id).append(';');
+                //Номер в конце названия делает книги уникальными, как в реальном каталоге
+                line.append(capitalize(WORDS[random.nextInt(WORDS.length)])).append(' ')
+                        .append(WORDS[random.nextInt(WORDS.length)]).append(' ').append(id).append(';');
+                line.append(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]).append(' ')
+                        .append(LAST_NAMES[random.nextInt(LAST_NAMES.length)]).append(';');
+                line.append(FIRST_YEAR + random.nextInt(YEARS)).append(';');
+                line.append(GENRES[random.nextInt(GENRES.length)]).append('\n');
+                writer.append(line);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+
+    //Метод load создает библиотеку и загружает в нее каталог из size книг; сообщения библиотеки отбрасываются
+    //Кэш результатов поиска выключен, чтобы бенчмарки, повторяющие один и тот же поиск, измеряли сам поиск
+    static LibraryManager load(int size, boolean searchIndex) throws IOException {
+        return load(size, searchIndex, false);
+    }
+
+    //Вариант с выбором хранилища книг: колоночное (columnar = true) или список объектов Book
+    static LibraryManager load(int size, boolean searchIndex, boolean columnar) throws IOException {
+        LibraryManager library = new LibraryManager();
+        library.setOutput(silent());
+        library.setSearchCacheCapacity(0);
+        library.setColumnarStorage(columnar);
+        library.setSearchIndexEnabled(searchIndex);
+        library.loadFromFile(textFile(size).toString());
+        return library;
+    }
+
+    static PrintStream silent() {
+        return new PrintStream(OutputStream.nullOutputStream());
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,59 @@
+package library;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Смешанная нагрузка из нескольких потоков: 19 читающих потоков на 1 пишущий (95/5)
+//Число потоков масштабируется ключом -tg, например -tg 38,2
+@State(Scope.Group)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ConcurrentBenchmark {
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private LibraryManager library;
+
+    @Setup
+    public void setUp() throws IOException {
+        library = Catalogues.load(size, true);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(19)
+    public Object read() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = 1 + random.nextInt(size);
+        return switch (random.nextInt(3)) {
+            case 0 -> library.findById(id);
+            case 1 -> library.findByYearRange(1900 + random.nextInt(100), 1900 + random.nextInt(100));
+            default -> library.findBooks(1, " " + id);
+        };
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void write() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        library.editBook(1 + random.nextInt(size), "Новое название " + random.nextInt(), null, null, null);
+    }
+}
@@ -0,0 +1,58 @@
+package library;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Бенчмарки нечеткого поиска LibraryManager.fuzzySearch (20 лучших совпадений) по запросам с опечатками и в другом падеже;
+//индекс нечеткого поиска строится в setUp. SampleTime дает перцентили задержки
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class FuzzySearchBenchmark {
+    @Param({"100000", "1000000"})
+    public int size;
+
+    //Отрезание окончаний слов (с ним "Толстого" находит "Толстой")
+    @Param({"true", "false"})
+    public boolean stemming;
+
+    private LibraryManager library;
+
+    @Setup
+    public void setUp() throws IOException {
+        library = Catalogues.load(size, false);
+        library.setFuzzyStemming(stemming);
+        library.setFuzzyIndexEnabled(true);
+    }
+
+    @Benchmark
+    public List<FuzzyMatch> fuzzyAuthor() {
+        return library.fuzzySearch(2, "Достоевкого", 20);
+    }
+
+    @Benchmark
+    public List<FuzzyMatch> fuzzyTitle() {
+        return library.fuzzySearch(1, "прступление и накозание", 20);
+    }
+
+    //Короткое слово (4-5 букв): триграмм мало, кандидаты отбираются по длине терма
+    @Benchmark
+    public List<FuzzyMatch> fuzzyShortWord() {
+        return library.fuzzySearch(2, "Бунен", 20);
+    }
+}
@@ -0,0 +1,58 @@
+package library;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Бенчмарк загрузки файла в уже заполненную библиотеку (слияние каталогов): в библиотеку из librarySize книг загружается
+//файл из fileSize новых книг, каждая из которых проверяется на дубликат по ключам всей библиотеки
+//Время загрузки должно расти линейно с размером файла и не зависеть от размера библиотеки: время на строку
+//(score / fileSize) одинаково для всех fileSize. Каждый замер - одна загрузка в заново заполненную библиотеку
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ImportBenchmark {
+    @Param({"1000000"})
+    public int librarySize;
+
+    @Param({"100000", "250000", "500000"})
+    public int fileSize;
+
+    private Path mergeFile;
+    private LibraryManager library;
+
+    @Setup
+    public void setUp() throws IOException {
+        mergeFile = Catalogues.mergeFile(librarySize, fileSize);
+    }
+
+    //Загрузка добавляет книги, поэтому перед каждым замером библиотека заполняется заново
+    @Setup(Level.Iteration)
+    public void populatedLibrary() throws IOException {
+        library = null;
+        library = Catalogues.load(librarySize, false);
+        //Мусор от заполнения библиотеки собирается до замера, а не во время загрузки
+        System.gc();
+    }
+
+    @Benchmark
+    public LibraryManager loadIntoPopulatedLibrary() {
+        library.loadFromFile(mergeFile.toString());
+        return library;
+    }
+}
@@ -0,0 +1,57 @@
+package library;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Бенчмарки изменяющих операций LibraryManager и проверки существования книги по id
+//Throughput дает пропускную способность, SampleTime - перцентили задержки; скорость выделения памяти: -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class LibraryManagerBenchmark {
+    //Размер каталога (10 млн книг требует около 8 ГБ кучи: -jvmArgsAppend -Xmx8g)
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private LibraryManager library;
+
+    @Setup
+    public void setUp() throws IOException {
+        library = Catalogues.load(size, false);
+    }
+
+    @Benchmark
+    public boolean isBookExists() {
+        return library.isBookExists(1 + ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    public void editBook() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        library.editBook(1 + random.nextInt(size), "Новое название " + random.nextInt(), null,
+                Catalogues.FIRST_YEAR + random.nextInt(Catalogues.YEARS), null);
+    }
+
+    //Библиотека растет на протяжении замера, как при реальном наборе каталога
+    @Benchmark
+    public void addBook() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        library.addBook("Новая книга " + random.nextInt(), "Автор " + random.nextInt(5000),
+                Catalogues.FIRST_YEAR + random.nextInt(Catalogues.YEARS), Catalogues.GENRES[random.nextInt(Catalogues.GENRES.length)]);
+    }
+}
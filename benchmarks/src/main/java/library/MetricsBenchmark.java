@@ -0,0 +1,65 @@
+package library;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Бенчмарки накладных расходов метрик (LibraryMetrics): самые быстрые операции библиотеки с включенными и выключенными метриками,
+//где стоимость записи метрик заметнее всего; searchByIdConcurrent - запись метрик из нескольких потоков поиска одновременно
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class MetricsBenchmark {
+    @Param({"100000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private LibraryManager library;
+
+    @Setup
+    public void setUp() throws IOException {
+        library = Catalogues.load(size, false);
+        library.metrics().setEnabled(metrics);
+    }
+
+    @Benchmark
+    public List<Book> searchById() {
+        return library.search(5, String.valueOf(1 + ThreadLocalRandom.current().nextInt(size))).page(0, 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Book> searchByIdConcurrent() {
+        return library.search(5, String.valueOf(1 + ThreadLocalRandom.current().nextInt(size))).page(0, 1);
+    }
+
+    @Benchmark
+    public List<Book> searchByYear() {
+        return library.search(4, String.valueOf(Catalogues.FIRST_YEAR + ThreadLocalRandom.current().nextInt(Catalogues.YEARS)))
+                .page(0, 20);
+    }
+
+    @Benchmark
+    public void editBook() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        library.editBook(1 + random.nextInt(size), null, null, Catalogues.FIRST_YEAR + random.nextInt(Catalogues.YEARS), null);
+    }
+}
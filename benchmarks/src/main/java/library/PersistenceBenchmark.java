@@ -0,0 +1,84 @@
+package library;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Бенчмарки сохранения и загрузки каталога в текстовом (txt) и двоичном (bin) форматах
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PersistenceBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"txt", "bin"})
+    public String format;
+
+    //Количество потоков разбора при загрузке текстового файла
+    @Param({"1"})
+    public int importThreads;
+
+    //Количество потоков кодирования при сохранении текстового файла
+    @Param({"1", "4"})
+    public int exportThreads;
+
+    private LibraryManager library;
+    private Path directory;
+    private Path source;
+    private Path target;
+    private LibraryManager loadTarget;
+
+    @Setup
+    public void setUp() throws IOException {
+        library = Catalogues.load(size, false);
+        library.setExportThreads(exportThreads);
+        directory = Files.createTempDirectory("library-bench");
+        source = directory.resolve("source." + format);
+        target = directory.resolve("target." + format);
+        library.saveToFile(source.toString());
+    }
+
+    //Для каждой загрузки нужна пустая библиотека, иначе все книги окажутся дубликатами
+    @Setup(Level.Invocation)
+    public void emptyLibrary() {
+        loadTarget = new LibraryManager();
+        loadTarget.setOutput(Catalogues.silent());
+        loadTarget.setImportThreads(importThreads);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(target);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public void saveToFile() {
+        library.saveToFile(target.toString());
+    }
+
+    @Benchmark
+    public LibraryManager loadFromFile() {
+        loadTarget.loadFromFile(source.toString());
+        return loadTarget;
+    }
+}
@@ -0,0 +1,70 @@
+package library;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Бенчмарки составных запросов LibraryManager.query: планировщик начинает с самого избирательного индекса,
+//для сравнения filterAll проверяет те же условия на всех книгах (как при фильтрации выгруженного списка)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class QueryBenchmark {
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"автор=толстой & год=1860..1869",
+            "жанр=роман воспитания & год=1900..1905 | автор=бунин & год=1933",
+            "название=мастер & автор=булгаков & жанр=роман"})
+    public String query;
+
+    @Param({"false", "true"})
+    public boolean searchIndex;
+
+    private LibraryManager library;
+    private BookQuery bookQuery;
+
+    @Setup
+    public void setUp() throws IOException {
+        library = Catalogues.load(size, searchIndex);
+        bookQuery = BookQuery.parse(query);
+    }
+
+    @Benchmark
+    public int query() {
+        return library.query(bookQuery).count();
+    }
+
+    @Benchmark
+    public int filterAll() {
+        List<Book> books = library.allBooks().page(0, Integer.MAX_VALUE);
+        int count = 0;
+        for (Book book : books) {
+            for (List<BookQuery.Condition> group : bookQuery.groups()) {
+                boolean match = true;
+                for (int i = 0; i < group.size() && match; i++) {
+                    match = group.get(i).matches(book);
+                }
+                if (match) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,75 @@
+package library;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Бенчмарки поиска LibraryManager.searchByAttribute по каждому атрибуту (найденные книги выводятся в пустой поток)
+//и постраничного поиска LibraryManager.search, когда читается только первая страница результата
+//Throughput дает пропускную способность, SampleTime - перцентили задержки; скорость выделения памяти: -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SearchBenchmark {
+    //Размер каталога (10 млн книг требует около 8 ГБ кучи: -jvmArgsAppend -Xmx8g)
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    //Номер атрибута из меню поиска: 1 название, 2 автор, 3 жанр, 4 год, 5 id, 6 диапазон лет, 7 десятилетие
+    @Param({"1", "2", "3", "4", "5", "6", "7"})
+    public int attribute;
+
+    //Триграммный индекс для поиска по названию, автору и жанру (сравнение с полным перебором)
+    @Param({"false", "true"})
+    public boolean searchIndex;
+
+    //Колоночное хранилище книг вместо списка объектов Book
+    @Param({"false", "true"})
+    public boolean columnar;
+
+    //Размер кэша результатов поиска (0 - без кэша; с кэшем повторный поиск по названию, автору и жанру берется из него)
+    @Param({"0"})
+    public int searchCache;
+
+    private LibraryManager library;
+    private String searchTerm;
+
+    @Setup
+    public void setUp() throws IOException {
+        library = Catalogues.load(size, searchIndex, columnar);
+        library.setSearchCacheCapacity(searchCache);
+        switch (attribute) {
+            case 1 -> searchTerm = " " + size / 2;
+            case 2 -> searchTerm = "Толстой";
+            case 3 -> searchTerm = "воспитания";
+            case 4 -> searchTerm = "1867";
+            case 5 -> searchTerm = String.valueOf(size / 2);
+            case 6 -> searchTerm = "1900..1905";
+            default -> searchTerm = "1960";
+        }
+    }
+
+    @Benchmark
+    public void searchByAttribute() {
+        library.searchByAttribute(attribute, searchTerm);
+    }
+
+    @Benchmark
+    public List<Book> searchFirstPage() {
+        return library.search(attribute, searchTerm).page(0, 20);
+    }
+}
@@ -0,0 +1,286 @@
+package library;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+//Класс BatchRunner реализует пакетный (неинтерактивный) режим: команды читаются из файла или стандартного ввода
+//и выполняются без вопросов пользователю, вывод буферизуется, а в конце печатается время выполнения по каждой команде
+//Формат команд (по одной в строке, поля через ';'):
+//  add название;автор;год;жанр
+//  edit id;название;автор;год;жанр   (пустое поле - не менять)
+//  search атрибут;значение[;смещение;количество]   (атрибут - номер из меню поиска 1-7)
+//  list [смещение;количество]
+//Если указаны смещение и количество, выводится только эта часть результата и общее количество найденных книг
+//  query запрос                      (составной запрос, например: автор=толстой & год=1860..1870 | жанр=роман)
+//  explain запрос                    (план выполнения составного запроса)
+//  fuzzy атрибут;запрос[;количество] (нечеткий поиск с опечатками: атрибут 1 - название, 2 - автор; по умолчанию 20 лучших)
+//  load имя_файла
+//  save имя_файла                    (существующий файл перезаписывается)
+//  stats [reset]                     (метрики операций библиотеки и кэша поиска; reset - обнулить метрики)
+//  cache количество                  (размер кэша результатов поиска, 0 - выключить кэш)
+//Пустые строки и строки, начинающиеся с '#', пропускаются
+class BatchRunner {
+    private final LibraryManager library;
+    private final PrintStream out;
+    //Статистика по командам: имя команды -> {количество, суммарное время (нс), максимальное время (нс)}
+    private final Map<String, long[]> timings = new LinkedHashMap<>();
+
+    public BatchRunner(LibraryManager library, PrintStream out) {
+        this.library = library;
+        this.out = out;
+    }
+
+    //Метод run запускает пакет команд из файла source ("-" - стандартный ввод)
+    static void run(LibraryManager library, String source) {
+        //Вывод буферизуется целиком и сбрасывается блоками, а не после каждой строки
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16),
+                false, StandardCharsets.UTF_8);
+        library.setOutput(out);
+        try (Reader input = source.equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8)) {
+            new BatchRunner(library, out).execute(new BufferedReader(input, 1 << 16));
+        } catch (NoSuchFileException e) {
+            out.println("Файл команд не найден: " + source);
+        } catch (IOException e) {
+            out.println("Ошибка при чтении команд: " + e.getMessage());
+        } finally {
+            library.setOutput(System.out);
+            out.flush();
+        }
+    }
+
+    private void execute(BufferedReader reader) throws IOException {
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int space = line.indexOf(' ');
+            String command = (space < 0 ? line : line.substring(0, space)).toLowerCase(Locale.ROOT);
+            String arguments = space < 0 ? "" : line.substring(space + 1).trim();
+
+            long start = System.nanoTime();
+            String error;
+            try {
+                error = executeCommand(command, arguments);
+            } catch (UncheckedIOException e) {
+                //Ошибка чтения файла посреди команды (например, испорченная запись отображенного каталога)
+                error = e.getCause().getMessage();
+            }
+            long elapsed = System.nanoTime() - start;
+            if (error != null) {
+                out.println("Строка " + lineNumber + ": " + error);
+                command = "ошибка";
+            }
+            long[] stats = timings.computeIfAbsent(command, c -> new long[3]);
+            stats[0]++;
+            stats[1] += elapsed;
+            stats[2] = Math.max(stats[2], elapsed);
+        }
+        printTimings();
+    }
+
+    //Метод executeCommand выполняет одну команду; возвращает текст ошибки или null, если команда выполнена
+    private String executeCommand(String command, String arguments) {
+        switch (command) {
+            case "add": {
+                String[] fields = arguments.split(";", -1);
+                if (fields.length != 4) {
+                    return "формат команды: add название;автор;год;жанр";
+                }
+                String title = fields[0].trim();
+                String author = fields[1].trim();
+                String genre = fields[3].trim();
+                Integer year = parseNumber(fields[2]);
+                //Те же проверки, что и в интерактивном меню добавления
+                if (title.isEmpty() || author.isEmpty() || genre.isEmpty() || year == null || year == 0) {
+                    return "название, автор, жанр и год (не 0) обязательны";
+                }
+                library.addBook(title, author, year, genre);
+                return null;
+            }
+            case "edit": {
+                String[] fields = arguments.split(";", -1);
+                if (fields.length != 5) {
+                    return "формат команды: edit id;название;автор;год;жанр";
+                }
+                Integer id = parseNumber(fields[0]);
+                if (id == null) {
+                    return "id должен быть целым числом";
+                }
+                Integer year = null;
+                if (!fields[3].trim().isEmpty()) {
+                    year = parseNumber(fields[3]);
+                    if (year == null) {
+                        return "год должен быть целым числом";
+                    }
+                }
+                library.editBook(id, fields[1].trim(), fields[2].trim(), year, fields[4].trim());
+                return null;
+            }
+            case "search": {
+                String[] fields = arguments.split(";", -1);
+                Integer attribute = fields.length < 2 ? null : parseNumber(fields[0]);
+                if (attribute == null || attribute < 1 || attribute > 7) {
+                    return "формат команды: search атрибут(1-7);значение[;смещение;количество]";
+                }
+                int[] page = fields.length >= 4 ? parsePage(fields[fields.length - 2], fields[fields.length - 1]) : null;
+                //Значение поиска - все, что между атрибутом и необязательными смещением и количеством
+                int termEnd = page != null ? fields.length - 2 : fields.length;
+                String term = String.join(";", Arrays.asList(fields).subList(1, termEnd)).trim();
+                if (term.isEmpty()) {
+                    return "поисковый запрос не может быть пустым";
+                }
+                if (page == null) {
+                    library.searchByAttribute(attribute, term);
+                } else {
+                    printPage(library.search(attribute, term), page);
+                }
+                return null;
+            }
+            case "list": {
+                if (arguments.isEmpty()) {
+                    library.listBooks();
+                    return null;
+                }
+                String[] fields = arguments.split(";", -1);
+                int[] page = fields.length == 2 ? parsePage(fields[0], fields[1]) : null;
+                if (page == null) {
+                    return "формат команды: list [смещение;количество]";
+                }
+                printPage(library.allBooks(), page);
+                return null;
+            }
+            case "query":
+            case "explain": {
+                if (arguments.isEmpty()) {
+                    return "поисковый запрос не может быть пустым";
+                }
+                BookQuery query;
+                try {
+                    query = BookQuery.parse(arguments);
+                } catch (IllegalArgumentException e) {
+                    return "ошибка в запросе: " + e.getMessage();
+                }
+                if (command.equals("query")) {
+                    library.searchByQuery(query);
+                } else {
+                    for (String line : library.explainQuery(query)) {
+                        out.println(line);
+                    }
+                }
+                return null;
+            }
+            case "fuzzy": {
+                String[] fields = arguments.split(";", -1);
+                Integer attribute = fields.length < 2 ? null : parseNumber(fields[0]);
+                Integer limit = fields.length == 3 ? parseNumber(fields[2]) : Integer.valueOf(20);
+                if (attribute == null || attribute < 1 || attribute > 2 || fields.length > 3 || limit == null || limit < 1) {
+                    return "формат команды: fuzzy атрибут(1-2);запрос[;количество]";
+                }
+                if (fields[1].trim().isEmpty()) {
+                    return "поисковый запрос не может быть пустым";
+                }
+                List<FuzzyMatch> matches = library.fuzzySearch(attribute, fields[1].trim(), limit);
+                if (matches.isEmpty()) {
+                    out.println("Книги не найдены");
+                }
+                for (FuzzyMatch match : matches) {
+                    out.println(match);
+                }
+                return null;
+            }
+            case "load":
+                if (arguments.isEmpty()) {
+                    return "не указано имя файла";
+                }
+                library.loadFromFile(arguments);
+                return null;
+            case "save":
+                if (arguments.isEmpty()) {
+                    return "не указано имя файла";
+                }
+                library.saveToFile(arguments);
+                return null;
+            case "cache": {
+                Integer capacity = parseNumber(arguments);
+                if (capacity == null || capacity < 0) {
+                    return "формат команды: cache количество";
+                }
+                library.setSearchCacheCapacity(capacity);
+                return null;
+            }
+            case "stats":
+                if (arguments.equals("reset")) {
+                    library.metrics().reset();
+                    return null;
+                }
+                if (!arguments.isEmpty()) {
+                    return "формат команды: stats [reset]";
+                }
+                for (String line : library.statsReport()) {
+                    out.println(line);
+                }
+                return null;
+            default:
+                return "неизвестная команда: " + command;
+        }
+    }
+
+    private static Integer parseNumber(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    //Метод parsePage разбирает смещение и количество книг страницы; возвращает null, если это не неотрицательные числа
+    private static int[] parsePage(String offset, String limit) {
+        Integer from = parseNumber(offset);
+        Integer count = parseNumber(limit);
+        if (from == null || count == null || from < 0 || count < 0) {
+            return null;
+        }
+        return new int[] {from, count};
+    }
+
+    //Метод printPage выводит общее количество книг результата и только запрошенную страницу
+    private void printPage(SearchResult result, int[] page) {
+        out.println("Найдено книг: " + result.count());
+        for (Book book : result.page(page[0], page[1])) {
+            out.println(book);
+        }
+    }
+
+    //Метод printTimings выводит количество, суммарное, среднее и максимальное время выполнения по каждой команде
+    private void printTimings() {
+        out.println("\n--- Время выполнения команд ---");
+        out.printf("%-10s %10s %12s %12s %12s%n", "команда", "кол-во", "всего, мс", "среднее, мкс", "макс, мкс");
+        for (Map.Entry<String, long[]> entry : timings.entrySet()) {
+            long[] stats = entry.getValue();
+            out.printf("%-10s %10d %12.1f %12.1f %12.1f%n", entry.getKey(), stats[0],
+                    stats[1] / 1e6, stats[1] / 1e3 / stats[0], stats[2] / 1e3);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package library;
+
+//Класс Book содержит основные атрибуты книги и методы для работы с ними(старался максимально соблюсти принципы ООП, как и в остальных классах)
+//Книга неизменяема: библиотека отдает читателям те же объекты, что хранит и индексирует, поэтому изменение книги -
+//это замена ее новым объектом под блокировкой библиотеки (см. LibraryManager.editBook)
+class Book {
+    private final int id;           //Уникальный идентификатор книги
+    private final String title;     //Название
+    private final String author;    //Автор
+    private final int year;         //Год издания
+    private final String genre;     //Жанр
+
+    //Конструктор
+    public Book(int id, String title, String author, int year, String genre) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.year = year;
+        this.genre = genre;
+    }
+
+    //Геттеры(для каждого атрибута)
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public String getGenre() {
+        return genre;
+    }
+
+    //Переопределение метода toString() для красивого вывода информации о книге
+    @Override
+    public String toString() {
+        //Простая конкатенация вместо String.format: строка получается та же, но без разбора шаблона при выводе каждой книги
+        return "id: " + id + " | Название: " + title + " | Автор: " + author + " | Год: " + year + " | Жанр: " + genre;
+    }
+}
@@ -0,0 +1,485 @@
+package library;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+//Класс BookJournal - журнал изменений библиотеки (write-ahead log), в который только дописываются операции добавления и редактирования книг
+//Файлы хранилища с базовым именем base:
+//  base.snap.N - снимок библиотеки в двоичном формате BookSnapshot, содержащий все изменения из журналов с номером меньше N
+//  base.wal.N  - журнал операций, выполненных после снимка N
+//При открытии загружается последний снимок и поверх него проигрываются журналы, начиная с его номера
+//Запись журнала: длина (4 байта), тип операции и данные, контрольная сумма CRC32 (4 байта)
+//Групповая фиксация: каждая запись получает порядковый номер, и операция считается выполненной только после awaitDurable -
+//когда пакет с ее записью записан в файл и сброшен на диск (force). Пока фоновый поток сбрасывает один пакет, записи
+//других потоков накапливаются и уходят на диск следующим пакетом одним вызовом force
+class BookJournal {
+    private static final byte OP_ADD = 1;
+    private static final byte OP_EDIT = 2;
+    //Флаги измененных полей в записи редактирования
+    private static final int EDIT_TITLE = 1;
+    private static final int EDIT_AUTHOR = 2;
+    private static final int EDIT_YEAR = 4;
+    private static final int EDIT_GENRE = 8;
+
+    //При таком размере текущего журнала библиотека сжимается в новый снимок
+    private static final long COMPACTION_THRESHOLD = 64L << 20;
+
+    private final Path directory;
+    private final String baseName;
+
+    //Блокировка буфера еще не записанных операций (берется при каждом изменении библиотеки)
+    private final Object bufferLock = new Object();
+    //Блокировка файла журнала (берется при записи на диск и смене файла)
+    private final Object fileLock = new Object();
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer writing = ByteBuffer.allocate(64 * 1024);
+    private FileChannel channel;
+    private long generation;   //Номер текущего файла журнала
+    private long journalSize;  //Размер текущего файла журнала вместе с еще не записанными операциями
+    private long appendedSequence; //Номер последней записи, положенной в буфер
+    private long durableSequence;  //Номер последней записи, уже сброшенной на диск
+    private IOException failure; //Ошибка фоновой записи, о которой сообщается при следующей операции
+    private IOException compactionFailure; //Ошибка фонового сжатия, о которой библиотека сообщает один раз
+    private boolean compacting;  //Идет сжатие (проверяется и меняется под bufferLock)
+    private volatile boolean closed;
+    private volatile Thread compaction;
+    private final Thread flusher;
+
+    private BookJournal(Path directory, String baseName, long generation) throws IOException {
+        this.directory = directory;
+        this.baseName = baseName;
+        this.generation = generation;
+        this.channel = openForAppend(walFile(generation));
+        this.journalSize = channel.size();
+        flusher = new Thread(this::flushLoop, "book-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    //Метод open восстанавливает состояние библиотеки из снимка и журналов и открывает журнал для новых операций
+    //Библиотека должна быть пустой: книги восстанавливаются с исходными id
+    static BookJournal open(Path base, LibraryManager library) throws IOException {
+        Path directory = base.toAbsolutePath().getParent();
+        String baseName = base.getFileName().toString();
+        List<Long> snapshots = listGenerations(directory, baseName + ".snap.");
+        List<Long> journals = listGenerations(directory, baseName + ".wal.");
+
+        long snapshotGeneration = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+        if (!snapshots.isEmpty()) {
+            Path snapshot = directory.resolve(baseName + ".snap." + snapshotGeneration);
+            try {
+                BookSnapshot.read(snapshot, new CatalogueReader.RecordHandler() {
+                    @Override
+                    public void record(int id, String title, String author, int year, String genre) {
+                        library.restoreBook(id, title, author, year, genre);
+                    }
+
+                    //Пропущенная запись снимка означала бы потерю книги, поэтому любая ошибка формата прерывает восстановление
+                    @Override
+                    public void formatError(String message) {
+                        throw new UncheckedIOException(new IOException("Снимок " + snapshot.getFileName() + " поврежден: " + message));
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        long generation = snapshotGeneration;
+        long newest = journals.isEmpty() ? 0 : journals.get(journals.size() - 1);
+        for (long journal : journals) {
+            if (journal >= snapshotGeneration) {
+                replay(directory.resolve(baseName + ".wal." + journal), library, journal == newest);
+                generation = journal;
+            }
+        }
+        return new BookJournal(directory, baseName, generation);
+    }
+
+    //Метод replay применяет к библиотеке все записи файла журнала
+    //Оборванной после сбоя может быть только запись в самом конце последнего журнала - она отрезается. Поврежденная запись
+    //в середине файла или в более старом журнале - ошибка: следующие записи нельзя проиграть без нее, поэтому открытие прерывается
+    private static void replay(Path file, LibraryManager library, boolean newest) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        CRC32 crc = new CRC32();
+        while (data.remaining() >= 4) {
+            int start = data.position();
+            int length = data.getInt();
+            //Длина сравнивается с остатком так, чтобы при мусорной длине около Integer.MAX_VALUE не было переполнения
+            boolean valid = length > 0 && length <= data.remaining() - 4;
+            if (valid) {
+                crc.reset();
+                crc.update(data.array(), data.position(), length);
+                valid = data.getInt(data.position() + length) == (int) crc.getValue();
+            }
+            if (!valid) {
+                if (newest && isTornTail(data, start, length)) {
+                    truncate(file, start);
+                    return;
+                }
+                throw new IOException("Журнал " + file.getFileName() + " поврежден: неверная запись по смещению " + start);
+            }
+            ByteBuffer record = ByteBuffer.wrap(data.array(), data.position(), length).slice();
+            try {
+                apply(record, library);
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Неверная запись в журнале " + file.getFileName());
+            }
+            data.position(data.position() + length + 4);
+        }
+        if (data.hasRemaining()) {
+            if (!newest) {
+                throw new IOException("Журнал " + file.getFileName() + " поврежден: неполная запись в конце файла");
+            }
+            truncate(file, data.position());
+        }
+    }
+
+    //Метод isTornTail проверяет, что неверная запись, начинающаяся в start, может быть оборванной последней записью:
+    //ее длина выходит за конец файла, она заканчивается ровно в конце файла или после нее в файле только нули
+    //(файл успел вырасти, а данные пакета не успели записаться)
+    private static boolean isTornTail(ByteBuffer data, int start, int length) {
+        if (length <= 0) {
+            return onlyZeros(data, start);
+        }
+        long end = (long) start + 4 + length + 4;
+        return end >= data.capacity() || onlyZeros(data, (int) end);
+    }
+
+    private static boolean onlyZeros(ByteBuffer data, int from) {
+        for (int i = from; i < data.capacity(); i++) {
+            if (data.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    private static void apply(ByteBuffer record, LibraryManager library) throws IOException {
+        byte op = record.get();
+        int id = BookSnapshot.unZigZag(BookSnapshot.getVarInt(record));
+        if (op == OP_ADD) {
+            String title = BookSnapshot.getString(record);
+            String author = BookSnapshot.getString(record);
+            int year = BookSnapshot.unZigZag(BookSnapshot.getVarInt(record));
+            String genre = BookSnapshot.getString(record);
+            library.restoreBook(id, title, author, year, genre);
+        } else if (op == OP_EDIT) {
+            int flags = record.get();
+            String title = (flags & EDIT_TITLE) != 0 ? BookSnapshot.getString(record) : null;
+            String author = (flags & EDIT_AUTHOR) != 0 ? BookSnapshot.getString(record) : null;
+            Integer year = (flags & EDIT_YEAR) != 0 ? BookSnapshot.unZigZag(BookSnapshot.getVarInt(record)) : null;
+            String genre = (flags & EDIT_GENRE) != 0 ? BookSnapshot.getString(record) : null;
+            library.restoreEdit(id, title, author, year, genre);
+        } else {
+            throw new IOException("Неизвестная операция в журнале: " + op);
+        }
+    }
+
+    //Метод logAdd записывает в журнал добавление книги и возвращает номер записи для awaitDurable
+    long logAdd(Book book) throws IOException {
+        byte[] title = book.getTitle().getBytes(StandardCharsets.UTF_8);
+        byte[] author = book.getAuthor().getBytes(StandardCharsets.UTF_8);
+        byte[] genre = book.getGenre().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(1 + 5 + 5 + 15 + title.length + author.length + genre.length);
+        record.put(OP_ADD);
+        BookSnapshot.putVarInt(record, BookSnapshot.zigZag(book.getId()));
+        BookSnapshot.putString(record, title);
+        BookSnapshot.putString(record, author);
+        BookSnapshot.putVarInt(record, BookSnapshot.zigZag(book.getYear()));
+        BookSnapshot.putString(record, genre);
+        return append(record);
+    }
+
+    //Метод logEdit записывает в журнал редактирование книги (null - поле не менялось) и возвращает номер записи для awaitDurable
+    long logEdit(int id, String title, String author, Integer year, String genre) throws IOException {
+        byte[] titleBytes = title != null ? title.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        byte[] authorBytes = author != null ? author.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        byte[] genreBytes = genre != null ? genre.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ByteBuffer record = ByteBuffer.allocate(1 + 5 + 1 + 20 + titleBytes.length + authorBytes.length + genreBytes.length);
+        record.put(OP_EDIT);
+        BookSnapshot.putVarInt(record, BookSnapshot.zigZag(id));
+        record.put((byte) ((title != null ? EDIT_TITLE : 0) | (author != null ? EDIT_AUTHOR : 0)
+                | (year != null ? EDIT_YEAR : 0) | (genre != null ? EDIT_GENRE : 0)));
+        if (title != null) {
+            BookSnapshot.putString(record, titleBytes);
+        }
+        if (author != null) {
+            BookSnapshot.putString(record, authorBytes);
+        }
+        if (year != null) {
+            BookSnapshot.putVarInt(record, BookSnapshot.zigZag(year));
+        }
+        if (genre != null) {
+            BookSnapshot.putString(record, genreBytes);
+        }
+        return append(record);
+    }
+
+    //Метод append кладет запись в буфер, будит фоновый поток и возвращает номер записи
+    //На диск запись попадет вместе с соседними записями; дождаться этого можно методом awaitDurable
+    private long append(ByteBuffer record) throws IOException {
+        record.flip();
+        int length = record.remaining();
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, length);
+        synchronized (bufferLock) {
+            if (failure != null) {
+                throw failure;
+            }
+            if (closed) {
+                throw new IOException("Журнал закрыт");
+            }
+            if (pending.remaining() < length + 8) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + length + 8));
+                pending.flip();
+                bigger.put(pending);
+                pending = bigger;
+            }
+            pending.putInt(length).put(record).putInt((int) crc.getValue());
+            journalSize += length + 8;
+            bufferLock.notifyAll();
+            return ++appendedSequence;
+        }
+    }
+
+    //Метод awaitDurable ждет, пока запись с номером sequence (и все записи до нее) будет сброшена на диск
+    //Вызывается без блокировки библиотеки, чтобы записи нескольких потоков успели собраться в один пакет
+    void awaitDurable(long sequence) throws IOException {
+        synchronized (bufferLock) {
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw failure;
+                }
+                try {
+                    bufferLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Ожидание записи журнала прервано");
+                }
+            }
+        }
+    }
+
+    //Метод needsCompaction сообщает, что журнал вырос и библиотеку пора сжать в новый снимок
+    boolean needsCompaction() {
+        synchronized (bufferLock) {
+            return journalSize > COMPACTION_THRESHOLD && !compacting;
+        }
+    }
+
+    //Метод compact начинает новый файл журнала и в фоновом потоке записывает снимок переданного состояния библиотеки
+    //books - копия книг библиотеки на момент вызова (все операции до этого момента уже в старых журналах)
+    //Возвращает false, если предыдущее сжатие еще не закончилось (тогда новое не начинается)
+    boolean compact(List<Book> books) throws IOException {
+        synchronized (bufferLock) {
+            if (compacting) {
+                return false;
+            }
+            compacting = true;
+        }
+        long snapshotGeneration;
+        try {
+            synchronized (fileLock) {
+                flush();
+                channel.close();
+                generation++;
+                snapshotGeneration = generation;
+                channel = openForAppend(walFile(generation));
+                synchronized (bufferLock) {
+                    journalSize = 0;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            synchronized (bufferLock) {
+                compacting = false;
+            }
+            throw e;
+        }
+        Thread thread = new Thread(() -> writeSnapshot(books, snapshotGeneration), "book-journal-compaction");
+        thread.setDaemon(true);
+        compaction = thread;
+        thread.start();
+        return true;
+    }
+
+    //Метод takeCompactionFailure возвращает ошибку последнего фонового сжатия (или null) и забывает ее
+    IOException takeCompactionFailure() {
+        synchronized (bufferLock) {
+            IOException e = compactionFailure;
+            compactionFailure = null;
+            return e;
+        }
+    }
+
+    //Метод writeSnapshot пишет снимок во временный файл, атомарно переименовывает его и удаляет устаревшие файлы
+    private void writeSnapshot(List<Book> books, long snapshotGeneration) {
+        try {
+            //Снимок должен оказаться на диске (вместе с записью о нем в папке) до удаления журналов, которые он заменяет
+            Path target = directory.resolve(baseName + ".snap." + snapshotGeneration);
+            CatalogueWriter.replaceAtomically(target, temp -> BookSnapshot.write(temp, books));
+            for (long old : listGenerations(directory, baseName + ".snap.")) {
+                if (old < snapshotGeneration) {
+                    Files.deleteIfExists(directory.resolve(baseName + ".snap." + old));
+                }
+            }
+            for (long old : listGenerations(directory, baseName + ".wal.")) {
+                if (old < snapshotGeneration) {
+                    Files.deleteIfExists(walFile(old));
+                }
+            }
+        } catch (IOException e) {
+            //Старые снимок и журналы остаются на месте, поэтому данные не теряются; сжатие повторится позже,
+            //а об ошибке библиотека сообщит в свой поток вывода при следующей операции
+            synchronized (bufferLock) {
+                compactionFailure = e;
+            }
+        } finally {
+            synchronized (bufferLock) {
+                compacting = false;
+            }
+            compaction = null;
+        }
+    }
+
+    //Метод sync сразу сбрасывает все накопленные операции на диск
+    void sync() throws IOException {
+        synchronized (fileLock) {
+            flush();
+        }
+        synchronized (bufferLock) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    //Метод close сбрасывает операции на диск, дожидается окончания сжатия и закрывает журнал
+    void close() throws IOException {
+        synchronized (bufferLock) {
+            closed = true;
+            bufferLock.notifyAll();
+        }
+        //Фоновый поток не прерываем: прерывание во время записи закрыло бы FileChannel, он сам завершится, сбросив оставшееся
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Thread running = compaction;
+        if (running != null) {
+            try {
+                running.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (fileLock) {
+            flush();
+            channel.close();
+        }
+    }
+
+    //Фоновый поток групповой фиксации: ждет новых записей и сбрасывает все накопленные к этому моменту записи одним force()
+    private void flushLoop() {
+        while (true) {
+            synchronized (bufferLock) {
+                while (pending.position() == 0 && !closed) {
+                    try {
+                        bufferLock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+            }
+            synchronized (fileLock) {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    //Ошибка уже сохранена в failure: о ней узнают ждущие и следующие операции
+                }
+            }
+        }
+    }
+
+    //Метод flush меняет буферы местами (быстро, под bufferLock) и пишет накопленное в файл уже без этой блокировки;
+    //после force() записи пакета отмечаются сброшенными и ждущие их потоки просыпаются (при ошибке - получают ее)
+    //Вызывается под fileLock, поэтому порядок записей в файле совпадает с порядком операций
+    private void flush() throws IOException {
+        long batchEnd;
+        synchronized (bufferLock) {
+            if (pending.position() == 0) {
+                return;
+            }
+            ByteBuffer full = pending;
+            pending = writing;
+            writing = full;
+            batchEnd = appendedSequence;
+        }
+        writing.flip();
+        try {
+            while (writing.hasRemaining()) {
+                channel.write(writing);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            synchronized (bufferLock) {
+                failure = e;
+                bufferLock.notifyAll();
+            }
+            throw e;
+        } finally {
+            writing.clear();
+        }
+        synchronized (bufferLock) {
+            durableSequence = batchEnd;
+            bufferLock.notifyAll();
+        }
+    }
+
+    private Path walFile(long number) {
+        return directory.resolve(baseName + ".wal." + number);
+    }
+
+    private static FileChannel openForAppend(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    //Метод listGenerations возвращает отсортированные номера файлов вида prefix + число
+    private static List<Long> listGenerations(Path directory, String prefix) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path file : files) {
+                String suffix = file.getFileName().toString().substring(prefix.length());
+                try {
+                    result.add(Long.parseLong(suffix));
+                } catch (NumberFormatException e) {
+                    //Временные и посторонние файлы пропускаем
+                }
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+}
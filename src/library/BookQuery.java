@@ -0,0 +1,128 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+//Класс BookQuery - составной запрос по нескольким атрибутам книги
+//Запрос записывается строкой вида "автор=толстой & год=1860..1870 | жанр=роман": условия внутри группы объединяются через И (&),
+//группы - через ИЛИ (|). Атрибуты: название, автор, жанр (поиск подстроки без учета регистра), год (точный год, "от..до"
+//или десятилетие "1960-е") и id
+class BookQuery {
+    //Условие запроса на один атрибут
+    static final class Condition {
+        static final int TITLE = 1;
+        static final int AUTHOR = 2;
+        static final int GENRE = 3;
+        static final int YEAR = 4;
+        static final int ID = 5;
+
+        final int attribute; //Атрибут (номера совпадают с меню поиска: 1 название, 2 автор, 3 жанр, 4 год, 5 id)
+        final String term;   //Значение из запроса (для названия, автора и жанра - в нижнем регистре)
+        final int from;      //Диапазон лет для условия на год, значение id для условия на id
+        final int to;
+        private final String text; //Исходная запись условия для вывода плана запроса
+
+        private Condition(int attribute, String term, int from, int to, String text) {
+            this.attribute = attribute;
+            this.term = term;
+            this.from = from;
+            this.to = to;
+            this.text = text;
+        }
+
+        //Метод matches проверяет, подходит ли книга под условие
+        boolean matches(Book book) {
+            switch (attribute) {
+                case TITLE:
+                    return book.getTitle().toLowerCase(Locale.ROOT).contains(term);
+                case AUTHOR:
+                    return book.getAuthor().toLowerCase(Locale.ROOT).contains(term);
+                case GENRE:
+                    return book.getGenre().toLowerCase(Locale.ROOT).contains(term);
+                case YEAR:
+                    return book.getYear() >= from && book.getYear() <= to;
+                default:
+                    return book.getId() == from;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    //Группы условий: книга подходит, если она удовлетворяет всем условиям хотя бы одной группы
+    private final List<List<Condition>> groups;
+
+    private BookQuery(List<List<Condition>> groups) {
+        this.groups = groups;
+    }
+
+    public List<List<Condition>> groups() {
+        return groups;
+    }
+
+    //Запрос в виде строки (условия в исходной записи) - для событий JFR о медленных запросах
+    @Override
+    public String toString() {
+        List<String> parts = new ArrayList<>();
+        for (List<Condition> group : groups) {
+            parts.add(String.join(" & ", group.stream().map(Object::toString).toList()));
+        }
+        return String.join(" | ", parts);
+    }
+
+    //Метод parse разбирает запрос из строки; при ошибке бросает IllegalArgumentException с понятным пользователю сообщением
+    public static BookQuery parse(String text) {
+        List<List<Condition>> groups = new ArrayList<>();
+        for (String groupText : text.split("\\|", -1)) {
+            List<Condition> group = new ArrayList<>();
+            for (String conditionText : groupText.split("&", -1)) {
+                group.add(parseCondition(conditionText.trim()));
+            }
+            groups.add(group);
+        }
+        return new BookQuery(groups);
+    }
+
+    private static Condition parseCondition(String text) {
+        int separator = text.indexOf('=');
+        if (separator < 0) {
+            throw new IllegalArgumentException(text.isEmpty()
+                    ? "пустое условие" : "условие \"" + text + "\" должно иметь вид атрибут=значение");
+        }
+        String name = text.substring(0, separator).trim().toLowerCase(Locale.ROOT);
+        String value = text.substring(separator + 1).trim();
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("не указано значение в условии \"" + text + "\"");
+        }
+        switch (name) {
+            case "название":
+                return new Condition(Condition.TITLE, value.toLowerCase(Locale.ROOT), 0, 0, text);
+            case "автор":
+                return new Condition(Condition.AUTHOR, value.toLowerCase(Locale.ROOT), 0, 0, text);
+            case "жанр":
+                return new Condition(Condition.GENRE, value.toLowerCase(Locale.ROOT), 0, 0, text);
+            case "год": {
+                //Форма записи определяет вид поиска по году так же, как пункты 4, 6 и 7 меню поиска
+                int attributeChoice = value.contains("..") ? 6 : value.endsWith("-е") ? 7 : 4;
+                int[] range = LibraryManager.parseYearRange(attributeChoice, value);
+                if (range == null) {
+                    throw new IllegalArgumentException("неверный год в условии \"" + text + "\"");
+                }
+                return new Condition(Condition.YEAR, value, range[0], range[1], text);
+            }
+            case "id":
+                try {
+                    int id = Integer.parseInt(value);
+                    return new Condition(Condition.ID, value, id, id, text);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("id должен быть целым числом в условии \"" + text + "\"");
+                }
+            default:
+                throw new IllegalArgumentException("неизвестный атрибут \"" + name + "\" (допустимы: название, автор, жанр, год, id)");
+        }
+    }
+}
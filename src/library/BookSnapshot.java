@@ -0,0 +1,298 @@
+package library;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+//Класс BookSnapshot реализует компактный двоичный формат сохранения библиотеки (файлы с расширением .bin)
+//Формат: заголовок (сигнатура "LIBS", версия, количество записей), записи, контрольная сумма CRC32 записей
+//Запись: id и год - целые переменной длины (varint), название, автор и жанр - длина (varint) и байты UTF-8
+//В отличие от текстового формата символ ';' в названиях не портит файл
+class BookSnapshot {
+    static final String EXTENSION = ".bin";
+    private static final int MAGIC = 0x4C494253; //"LIBS"
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 9;    //Сигнатура (4 байта), версия (1 байт), количество записей (4 байта)
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    //Метод isSnapshotFile определяет по расширению, что файл должен быть в двоичном формате
+    static boolean isSnapshotFile(String filename) {
+        return filename.toLowerCase(Locale.ROOT).endsWith(EXTENSION);
+    }
+
+    //Метод write сохраняет список книг в двоичный файл
+    static void write(Path path, List<Book> books) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.buffer.putInt(MAGIC).put(VERSION).putInt(books.size());
+            out.checksumFrom = out.buffer.position();
+            for (Book book : books) {
+                out.writeVarInt(zigZag(book.getId()));
+                out.writeString(book.getTitle());
+                out.writeString(book.getAuthor());
+                out.writeVarInt(zigZag(book.getYear()));
+                out.writeString(book.getGenre());
+            }
+            out.finish();
+            //Данные сбрасываются на диск до закрытия файла, чтобы снимок можно было безопасно использовать вместе с журналом
+            channel.force(true);
+        }
+    }
+
+    //Метод read читает двоичный файл и передает записи обработчику (тому же, что и при загрузке текстового файла)
+    //Контрольная сумма проверяется до разбора записей, поэтому поврежденный файл не загружается даже частично
+    static void read(Path path, CatalogueReader.RecordHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int count = readHeader(channel);
+            verifyChecksum(channel);
+
+            Input in = new Input(channel, HEADER_SIZE, channel.size() - 4);
+            for (int i = 0; i < count; i++) {
+                int id = unZigZag(in.readVarInt());
+                String title = in.readString();
+                String author = in.readString();
+                int year = unZigZag(in.readVarInt());
+                String genre = in.readString();
+                handler.record(id, title, author, year, genre);
+            }
+            if (in.remaining() != 0) {
+                throw new IOException("Неверный формат файла: лишние данные после последней записи");
+            }
+        }
+    }
+
+    private static int readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Неверный формат файла: файл слишком короткий");
+            }
+        }
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Неверный формат файла: это не двоичный файл библиотеки");
+        }
+        byte version = header.get();
+        if (version != VERSION) {
+            throw new IOException("Неподдерживаемая версия двоичного файла: " + version);
+        }
+        int count = header.getInt();
+        if (count < 0) {
+            throw new IOException("Неверный формат файла: отрицательное количество записей");
+        }
+        return count;
+    }
+
+    //Метод verifyChecksum считает CRC32 записей и сравнивает с суммой в конце файла
+    private static void verifyChecksum(FileChannel channel) throws IOException {
+        long end = channel.size() - 4;
+        if (end < HEADER_SIZE) {
+            throw new IOException("Неверный формат файла: файл слишком короткий");
+        }
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long position = HEADER_SIZE;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            position += read;
+            buffer.flip();
+            crc.update(buffer);
+        }
+        ByteBuffer stored = ByteBuffer.allocate(4);
+        while (stored.hasRemaining()) {
+            if (channel.read(stored, end + stored.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        if (stored.getInt(0) != (int) crc.getValue()) {
+            throw new IOException("Файл поврежден: контрольная сумма не совпадает");
+        }
+    }
+
+    //ZigZag-кодирование, чтобы отрицательные числа (например, годы до нашей эры) тоже занимали мало байт
+    static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    //Вспомогательные методы кодирования для буферов в памяти (используются журналом изменений)
+    static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static void putString(ByteBuffer buffer, byte[] bytes) {
+        putVarInt(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    static int getVarInt(ByteBuffer buffer) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Неверный формат: слишком длинное число");
+    }
+
+    static String getString(ByteBuffer buffer) throws IOException {
+        int length = getVarInt(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Неверный формат: неверная длина строки");
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    //Класс Output буферизует запись в канал и считает контрольную сумму записанных данных
+    static class Output {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final FileChannel channel;
+        private final CRC32 crc = new CRC32();
+        int checksumFrom; //С какой позиции буфера начинаются данные, входящие в контрольную сумму
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void writeVarInt(int value) throws IOException {
+            ensure(5);
+            putVarInt(buffer, value);
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        //Метод finish дописывает контрольную сумму и сбрасывает буфер в файл
+        void finish() throws IOException {
+            flush();
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            writeFully();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            crc.update(buffer.array(), checksumFrom, buffer.position() - checksumFrom);
+            checksumFrom = 0;
+            buffer.flip();
+            writeFully();
+        }
+
+        private void writeFully() throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    //Класс Input читает участок канала через буфер и разбирает varint-числа и строки
+    static class Input {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        Input(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+            buffer.limit(0);
+        }
+
+        //Метод remaining возвращает количество еще не разобранных байт участка
+        long remaining() {
+            return buffer.remaining() + (end - position);
+        }
+
+        int readVarInt() throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                ensure(1);
+                byte b = buffer.get();
+                result |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Неверный формат файла: слишком длинное число");
+        }
+
+        String readString() throws IOException {
+            int length = readVarInt();
+            if (length < 0 || length > remaining()) {
+                throw new IOException("Неверный формат файла: неверная длина строки");
+            }
+            ensure(length);
+            String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        //Метод ensure гарантирует, что в буфере есть хотя бы bytes непрочитанных байт
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            if (bytes > buffer.capacity()) {
+                ByteBuffer bigger = ByteBuffer.allocate(bytes);
+                bigger.put(buffer);
+                bigger.flip();
+                buffer = bigger;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (position >= end) {
+                    throw new EOFException("Неверный формат файла: неожиданный конец записей");
+                }
+                buffer.limit((int) Math.min(buffer.capacity(), buffer.position() + (end - position)));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException("Неверный формат файла: неожиданный конец записей");
+                }
+                position += read;
+            }
+            buffer.flip();
+        }
+    }
+}
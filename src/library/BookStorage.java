@@ -0,0 +1,26 @@
+package library;
+
+import java.util.List;
+
+//Интерфейс BookStorage - хранилище книг библиотеки, в котором каждая книга занимает постоянную позицию (0, 1, 2, ...)
+//Реализации: ListBookStorage (список объектов Book) и ColumnarBookStorage (атрибуты книг в отдельных массивах-столбцах)
+//Все методы вызываются LibraryManager под его блокировкой
+interface BookStorage {
+    int size();
+
+    //Метод get возвращает книгу на позиции (колоночное хранилище создает объект Book при каждом обращении)
+    Book get(int position);
+
+    //Метод add добавляет книгу в конец хранилища
+    void add(Book book);
+
+    //Метод set заменяет книгу на позиции (при редактировании)
+    void set(int position, Book book);
+
+    //Метод findContaining возвращает по возрастанию позиции книг, у которых атрибут (1 название, 2 автор, 3 жанр)
+    //содержит подстроку lowerTerm (запрос уже в нижнем регистре, сравнение без учета регистра)
+    int[] findContaining(int attribute, String lowerTerm);
+
+    //Метод toList возвращает список всех книг на текущий момент (для сохранения в файл и снимка журнала)
+    List<Book> toList();
+}
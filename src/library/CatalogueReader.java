@@ -0,0 +1,213 @@
+package library;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+//Класс CatalogueReader построчно разбирает текстовый файл каталога формата id;название;автор;год;жанр (UTF-8)
+//Символы ';' и '\' внутри полей записываются с обратной косой чертой перед ними; перед другими символами она остается как есть
+//Файл читается через FileChannel большим буфером, поля разделяются вручную без split() и регулярных выражений,
+//поэтому расход памяти не зависит от размера файла
+class CatalogueReader {
+    private static final int BUFFER_SIZE = 1 << 20; //Размер буфера чтения (1 МБ)
+    private static final int FIELDS = 5;            //Количество полей в записи
+
+    //Интерфейс RecordHandler получает разобранные записи и сообщения об ошибках формата
+    interface RecordHandler {
+        void record(int id, String title, String author, int year, String genre);
+
+        void formatError(String message);
+    }
+
+    private final RecordHandler handler;
+    //Границы полей текущей строки (начало и конец каждого поля в буфере)
+    private final int[] fieldStarts = new int[FIELDS + 1];
+    private final int[] fieldEnds = new int[FIELDS + 1];
+    private boolean escaped; //В текущей строке есть экранированные символы
+
+    public CatalogueReader(RecordHandler handler) {
+        this.handler = handler;
+    }
+
+    //Метод read разбирает байты файла с позиции start до позиции end (start должен совпадать с началом строки)
+    public void read(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = start;
+        while (position < end) {
+            //Читаем не дальше конца заданного участка файла
+            int limit = (int) Math.min(buffer.capacity(), buffer.position() + (end - position));
+            buffer.limit(limit);
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+            buffer.flip();
+
+            byte[] data = buffer.array();
+            int lineStart = 0;
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (data[i] == '\n' || data[i] == '\r') {
+                    parseLine(data, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+
+            //Незаконченную строку переносим в начало буфера; если она не помещается - увеличиваем буфер
+            int rest = buffer.limit() - lineStart;
+            if (rest == buffer.capacity()) {
+                ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() * 2);
+                bigger.put(data, 0, rest);
+                buffer = bigger;
+            } else {
+                System.arraycopy(data, lineStart, data, 0, rest);
+                buffer.clear();
+                buffer.position(rest);
+            }
+        }
+        //Последняя строка файла может не заканчиваться переводом строки
+        if (buffer.position() > 0) {
+            parseLine(buffer.array(), 0, buffer.position());
+        }
+    }
+
+    //Метод splitIntoChunks делит файл на участки размером около chunkSize байт так, чтобы каждый участок начинался с начала строки
+    //Возвращает границы участков: участок k занимает байты с bounds[k] по bounds[k + 1]
+    static long[] splitIntoChunks(FileChannel channel, long chunkSize) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long target = chunkSize;
+        while (target < size) {
+            long lineStart = nextLineStart(channel, target, buffer);
+            if (lineStart >= size) {
+                break;
+            }
+            bounds.add(lineStart);
+            target = lineStart + chunkSize;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    //Метод nextLineStart ищет начало первой строки, начинающейся не раньше позиции from
+    private static long nextLineStart(FileChannel channel, long from, ByteBuffer buffer) throws IOException {
+        //Начинаем с предыдущего байта: если он - перевод строки, то from уже является началом строки
+        long position = from - 1;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            byte[] data = buffer.array();
+            for (int i = 0; i < read; i++) {
+                if (data[i] == '\n' || data[i] == '\r') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    //Метод parseLine делит строку на поля по ';' (как line.split(";"), т.е. пустые поля в конце строки отбрасываются)
+    //Экранированный '\;' разделителем не считается
+    private void parseLine(byte[] data, int from, int to) {
+        int count = 0;
+        int fieldStart = from;
+        escaped = false;
+        for (int i = from; i <= to; i++) {
+            if (i < to - 1 && data[i] == '\\' && (data[i + 1] == ';' || data[i + 1] == '\\')) {
+                escaped = true;
+                i++;
+            } else if (i == to || data[i] == ';') {
+                if (count > FIELDS) {
+                    //Лишнее непустое поле - строка заведомо неверная
+                    if (i > fieldStart) {
+                        return;
+                    }
+                } else {
+                    fieldStarts[count] = fieldStart;
+                    fieldEnds[count] = i;
+                    count++;
+                }
+                fieldStart = i + 1;
+            }
+        }
+        //Отбрасываем пустые поля в конце строки
+        while (count > 0 && fieldEnds[count - 1] == fieldStarts[count - 1]) {
+            count--;
+        }
+        if (count != FIELDS) {
+            return;
+        }
+
+        try {
+            int id = parseInt(data, fieldStarts[0], fieldEnds[0]);
+            int year = parseInt(data, fieldStarts[3], fieldEnds[3]);
+            handler.record(id, field(data, 1), field(data, 2), year, field(data, 4));
+        } catch (NumberFormatException e) {
+            handler.formatError(e.getMessage());
+        }
+    }
+
+    private String field(byte[] data, int index) {
+        int from = fieldStarts[index];
+        int to = fieldEnds[index];
+        if (!escaped) {
+            return new String(data, from, to - from, StandardCharsets.UTF_8);
+        }
+        //В строке были экранированные символы - убираем обратную косую черту перед ними
+        byte[] unescaped = new byte[to - from];
+        int length = 0;
+        for (int i = from; i < to; i++) {
+            if (i < to - 1 && data[i] == '\\' && (data[i + 1] == ';' || data[i + 1] == '\\')) {
+                i++;
+            }
+            unescaped[length++] = data[i];
+        }
+        return new String(unescaped, 0, length, StandardCharsets.UTF_8);
+    }
+
+    //Метод parseInt разбирает целое число прямо из байтов (те же правила и сообщение об ошибке, что у Integer.parseInt)
+    static int parseInt(byte[] data, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (data[i] == '-' || data[i] == '+')) {
+            negative = data[i] == '-';
+            i++;
+        }
+        if (i == to) {
+            throw invalidNumber(data, from, to);
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalidNumber(data, from, to);
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw invalidNumber(data, from, to);
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw invalidNumber(data, from, to);
+        }
+        return (int) value;
+    }
+
+    private static NumberFormatException invalidNumber(byte[] data, int from, int to) {
+        return new NumberFormatException("For input string: \"" + new String(data, from, to - from, StandardCharsets.UTF_8) + "\"");
+    }
+}
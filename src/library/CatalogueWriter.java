@@ -0,0 +1,257 @@
+package library;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+//Класс CatalogueWriter записывает книги в текстовый файл каталога формата id;название;автор;год;жанр (UTF-8) - тот же формат,
+//который разбирает CatalogueReader. Книги кодируются в байты вручную, без промежуточных строк, участками по CHUNK_SIZE книг:
+//участки кодируются параллельно в пуле потоков в переиспользуемые буферы и записываются в файл строго по порядку одним каналом,
+//сразу все готовые участки за один вызов write. Файл пишется во временный, сбрасывается на диск и только затем атомарно
+//заменяет старый, поэтому после сбоя на диске остается либо старый файл, либо новый целиком
+class CatalogueWriter {
+    private static final int CHUNK_SIZE = 16_384;    //Книг в одном участке (около 1 МБ текста)
+    private static final int BUFFER_SIZE = 1 << 20;  //Начальный размер буфера участка
+
+    //Интерфейс TempFileWriter записывает содержимое файла во временный файл
+    interface TempFileWriter {
+        void write(Path temp) throws IOException;
+    }
+
+    //Метод replaceAtomically записывает файл через временный файл рядом с ним и атомарно заменяет им файл path
+    //(writer должен сам сбросить данные на диск); при ошибке временный файл удаляется, а старый файл остается нетронутым
+    //Имя временного файла уникально, поэтому одновременные сохранения в один файл не портят временные файлы друг друга
+    //(побеждает последнее переименование). После переименования на диск сбрасывается и папка, чтобы после сбоя
+    //в ней оказался новый файл, а не старый
+    static void replaceAtomically(Path path, TempFileWriter writer) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            keepPermissions(path, temp);
+            writer.write(temp);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        syncDirectory(directory);
+    }
+
+    //Метод keepPermissions дает временному файлу права заменяемого файла (или обычные rw-r--r-- для нового):
+    //createTempFile создает файл, доступный только владельцу
+    private static void keepPermissions(Path path, Path temp) throws IOException {
+        if (!Files.getFileStore(temp).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            return;
+        }
+        Files.setPosixFilePermissions(temp, Files.exists(path)
+                ? Files.getPosixFilePermissions(path) : PosixFilePermissions.fromString("rw-r--r--"));
+    }
+
+    //Метод syncDirectory сбрасывает на диск запись папки (переименование файла); в Windows папку нельзя открыть как файл,
+    //и там переименование сохраняется файловой системой само, поэтому ошибка открытия папки пропускается
+    static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    //Метод write сохраняет книги в текстовый файл, кодируя участки в threads потоков
+    static void write(Path path, List<Book> books, int threads) throws IOException {
+        replaceAtomically(path, temp -> {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                int chunks = (books.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+                if (threads > 1 && chunks > 1) {
+                    writeParallel(channel, books, chunks, threads);
+                } else {
+                    Chunk chunk = new Chunk();
+                    for (int from = 0; from < books.size(); from += CHUNK_SIZE) {
+                        chunk.encode(books, from, Math.min(books.size(), from + CHUNK_SIZE));
+                        writeFully(channel, List.of(chunk));
+                    }
+                }
+                channel.force(true);
+            }
+        });
+    }
+
+    //Метод writeParallel кодирует участки в пуле потоков и пишет их по порядку; одновременно в работе не больше двух участков
+    //на поток, а буферы записанных участков переиспользуются для следующих, поэтому память не зависит от количества книг
+    private static void writeParallel(FileChannel channel, List<Book> books, int chunks, int threads) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        ConcurrentLinkedQueue<Chunk> freeChunks = new ConcurrentLinkedQueue<>();
+        try {
+            int window = threads * 2;
+            ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+            List<Chunk> ready = new ArrayList<>(window);
+            int nextChunk = 0;
+            while (nextChunk < chunks || !pending.isEmpty()) {
+                while (nextChunk < chunks && pending.size() < window) {
+                    int from = nextChunk * CHUNK_SIZE;
+                    int to = Math.min(books.size(), from + CHUNK_SIZE);
+                    pending.add(pool.submit(() -> {
+                        Chunk chunk = freeChunks.poll();
+                        if (chunk == null) {
+                            chunk = new Chunk();
+                        }
+                        chunk.encode(books, from, to);
+                        return chunk;
+                    }));
+                    nextChunk++;
+                }
+                //Ждем следующий по порядку участок и забираем вместе с ним все уже готовые участки за ним
+                ready.add(awaitChunk(pending.poll()));
+                while (!pending.isEmpty() && pending.peek().isDone()) {
+                    ready.add(awaitChunk(pending.poll()));
+                }
+                writeFully(channel, ready);
+                freeChunks.addAll(ready);
+                ready.clear();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Chunk awaitChunk(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Сохранение прервано");
+        } catch (ExecutionException e) {
+            //Кодирование не бросает проверяемых исключений: ошибки и непроверяемые исключения передаются как есть
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    //Метод writeFully записывает участки одним вызовом write с несколькими буферами, повторяя его, пока не запишется все
+    private static void writeFully(FileChannel channel, List<Chunk> chunks) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[chunks.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = chunks.get(i).buffer();
+        }
+        ByteBuffer last = buffers[buffers.length - 1];
+        while (last.hasRemaining()) {
+            channel.write(buffers);
+        }
+    }
+
+    //Класс Chunk - буфер, в который кодируется участок книг; буфер растет при необходимости и переиспользуется
+    private static class Chunk {
+        private byte[] data = new byte[BUFFER_SIZE];
+        private int length;
+
+        //Метод encode кодирует книги с позиции from до to (не включительно) строками id;название;автор;год;жанр
+        void encode(List<Book> books, int from, int to) {
+            length = 0;
+            for (int i = from; i < to; i++) {
+                Book book = books.get(i);
+                putInt(book.getId());
+                putByte(';');
+                putString(book.getTitle());
+                putByte(';');
+                putString(book.getAuthor());
+                putByte(';');
+                putInt(book.getYear());
+                putByte(';');
+                putString(book.getGenre());
+                putByte('\n');
+            }
+        }
+
+        ByteBuffer buffer() {
+            return ByteBuffer.wrap(data, 0, length);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+            }
+        }
+
+        private void putByte(char c) {
+            ensureCapacity(1);
+            data[length++] = (byte) c;
+        }
+
+        private void putInt(int value) {
+            ensureCapacity(11);
+            long rest = value;
+            if (rest < 0) {
+                data[length++] = '-';
+                rest = -rest;
+            }
+            int start = length;
+            do {
+                data[length++] = (byte) ('0' + rest % 10);
+                rest /= 10;
+            } while (rest > 0);
+            //Цифры записаны с младшей, переставляем их в обратном порядке
+            for (int i = start, j = length - 1; i < j; i++, j--) {
+                byte digit = data[i];
+                data[i] = data[j];
+                data[j] = digit;
+            }
+        }
+
+        //Метод putString кодирует строку в UTF-8 так же, как String.getBytes (одиночный суррогат заменяется на '?')
+        //Разделитель ';' и обратная косая черта внутри строки экранируются обратной косой чертой (см. CatalogueReader.parseLine)
+        private void putString(String value) {
+            //Три байта на символ хватает и на экранирование: экранированный символ занимает два байта
+            ensureCapacity(value.length() * 3);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    if (c == ';' || c == '\\') {
+                        data[length++] = '\\';
+                    }
+                    data[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    data[length++] = (byte) (0xC0 | c >> 6);
+                    data[length++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    data[length++] = (byte) (0xF0 | codePoint >> 18);
+                    data[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    data[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    data[length++] = (byte) (0x80 | codePoint & 0x3F);
+                } else if (Character.isSurrogate(c)) {
+                    data[length++] = '?';
+                } else {
+                    data[length++] = (byte) (0xE0 | c >> 12);
+                    data[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    data[length++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+        }
+    }
+}
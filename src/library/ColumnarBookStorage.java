@@ -0,0 +1,140 @@
+package library;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Класс ColumnarBookStorage - колоночное хранилище книг: вместо объекта Book с тремя строками на каждую книгу атрибуты хранятся
+//в параллельных массивах примитивов. id и год - массивы int, автор и жанр - коды в словарях (значения повторяются у многих книг),
+//названия - байты UTF-8 подряд в одном общем массиве. Объект Book создается только при обращении к книге
+class ColumnarBookStorage implements BookStorage {
+    private int size;
+    private int[] ids;
+    private int[] years;
+    private int[] authors;            //Коды авторов в словаре authorDictionary
+    private int[] genres;             //Коды жанров в словаре genreDictionary
+    private int[] titleOffsets;       //Начало названия книги в массиве titleBytes
+    private int[] titleLengths;       //Длина названия в байтах
+    private byte[] titleBytes;        //Названия всех книг в кодировке UTF-8
+    private int titleBytesSize;       //Занятая часть массива titleBytes
+    private final StringDictionary authorDictionary;
+    private final StringDictionary genreDictionary;
+
+    //Словари авторов и жанров общие с LibraryManager, поэтому строки в созданных объектах Book - те же экземпляры из словарей
+    public ColumnarBookStorage(StringDictionary authorDictionary, StringDictionary genreDictionary) {
+        ids = new int[1024];
+        years = new int[1024];
+        authors = new int[1024];
+        genres = new int[1024];
+        titleOffsets = new int[1024];
+        titleLengths = new int[1024];
+        titleBytes = new byte[1 << 16];
+        this.authorDictionary = authorDictionary;
+        this.genreDictionary = genreDictionary;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Book get(int position) {
+        if (position >= size) {
+            throw new IndexOutOfBoundsException("Позиция " + position + ", книг: " + size);
+        }
+        return new Book(ids[position], title(position), authorDictionary.decode(authors[position]),
+                years[position], genreDictionary.decode(genres[position]));
+    }
+
+    @Override
+    public void add(Book book) {
+        if (size == ids.length) {
+            int capacity = size + (size >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            years = Arrays.copyOf(years, capacity);
+            authors = Arrays.copyOf(authors, capacity);
+            genres = Arrays.copyOf(genres, capacity);
+            titleOffsets = Arrays.copyOf(titleOffsets, capacity);
+            titleLengths = Arrays.copyOf(titleLengths, capacity);
+        }
+        size++;
+        set(size - 1, book);
+    }
+
+    @Override
+    public void set(int position, Book book) {
+        ids[position] = book.getId();
+        years[position] = book.getYear();
+        authors[position] = authorDictionary.encode(book.getAuthor());
+        genres[position] = genreDictionary.encode(book.getGenre());
+
+        byte[] title = book.getTitle().getBytes(StandardCharsets.UTF_8);
+        //Новое название, которое помещается на место старого, записывается поверх него, иначе - в конец массива
+        //(у новой книги длина старого названия 0; место длинного старого названия не освобождается, но редактирование бывает редко)
+        if (title.length > titleLengths[position]) {
+            titleOffsets[position] = appendTitle(title);
+        } else {
+            System.arraycopy(title, 0, titleBytes, titleOffsets[position], title.length);
+        }
+        titleLengths[position] = title.length;
+    }
+
+    private int appendTitle(byte[] title) {
+        if (titleBytesSize + title.length > titleBytes.length) {
+            long capacity = Math.max((long) titleBytes.length * 2, (long) titleBytesSize + title.length);
+            titleBytes = Arrays.copyOf(titleBytes, (int) Math.min(capacity, Integer.MAX_VALUE - 8));
+        }
+        int offset = titleBytesSize;
+        System.arraycopy(title, 0, titleBytes, offset, title.length);
+        titleBytesSize += title.length;
+        return offset;
+    }
+
+    private String title(int position) {
+        return new String(titleBytes, titleOffsets[position], titleLengths[position], StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int[] findContaining(int attribute, String lowerTerm) {
+        IntList found = new IntList();
+        if (attribute == 1) {
+            byte[] term = lowerTerm.getBytes(StandardCharsets.UTF_8);
+            byte[] buffer = new byte[256];
+            for (int position = 0; position < size; position++) {
+                if (titleLengths[position] > buffer.length) {
+                    buffer = new byte[titleLengths[position]];
+                }
+                if (Utf8Search.containsIgnoreCase(titleBytes, titleOffsets[position], titleLengths[position],
+                        term, lowerTerm, buffer)) {
+                    found.add(position);
+                }
+            }
+            return found.toArray();
+        }
+        //Для автора и жанра подстрока проверяется один раз для каждого значения словаря,
+        //после чего перебирается только массив кодов
+        StringDictionary dictionary = attribute == 2 ? authorDictionary : genreDictionary;
+        int[] codes = attribute == 2 ? authors : genres;
+        boolean[] matches = new boolean[dictionary.size()];
+        for (int code = 0; code < matches.length; code++) {
+            matches[code] = dictionary.lowerCase(code).contains(lowerTerm);
+        }
+        for (int position = 0; position < size; position++) {
+            if (matches[codes[position]]) {
+                found.add(position);
+            }
+        }
+        return found.toArray();
+    }
+
+    @Override
+    public List<Book> toList() {
+        List<Book> books = new ArrayList<>(size);
+        for (int position = 0; position < size; position++) {
+            books.add(get(position));
+        }
+        return books;
+    }
+}
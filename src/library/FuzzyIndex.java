@@ -0,0 +1,368 @@
+package library;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+//Класс FuzzyIndex - индекс для нечеткого поиска (с опечатками и в других падежах) по словам одного атрибута книг (название или автор)
+//Значения разбиваются на слова, слова нормализуются (нижний регистр, ё -> е) и при включенном стемминге лишаются падежного окончания
+//("Толстого" и "Толстой" -> "толст"). Для каждого такого терма хранится отсортированный список позиций книг, а сами термы
+//(их в разы меньше, чем книг) - в словаре с триграммным индексом и списками термов по длине. Поиск для слова запроса отбирает
+//по триграммам (для коротких слов - по длине) термы, которые могут быть на расстоянии Левенштейна не больше допустимого,
+//проверяет расстояние с отсечением и складывает сходство найденных термов в оценку книг - только тех, что есть в их списках
+//позиций, поэтому работа поиска не зависит от размера библиотеки. Числа в словарь не попадают (номера в названиях)
+class FuzzyIndex {
+    //Окончания для стемминга - от длинных к коротким, проверяется самое длинное подходящее
+    private static final String[] ENDINGS = {"иями", "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими", "ой", "ей", "ий",
+            "ый", "ым", "им", "ая", "яя", "ое", "ее", "ые", "ие", "ую", "юю", "ам", "ям", "ах", "ях", "ом", "ем", "ью", "ия", "ию",
+            "ии", "а", "я", "о", "е", "ы", "и", "у", "ю", "ь", "й"};
+    private static final int MIN_STEM = 3; //Окончание не отрезается, если от слова останется меньше трех букв
+    private static final char BOUNDARY = '\u0001'; //Граница слова при разбиении терма на триграммы
+
+    //Сколько свободных аккумуляторов (массивов размером с библиотеку) индекс хранит для следующих поисков:
+    //одновременных поисков больше, чем процессоров, почти не бывает, а лишние аккумуляторы отдаются сборщику мусора
+    private static final int MAX_SPARE_ACCUMULATORS = Runtime.getRuntime().availableProcessors();
+
+    private final boolean stemming;
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<IntList> postings = new ArrayList<>(); //Номер терма -> позиции книг
+    private final Map<Long, IntList> gramTerms = new HashMap<>(); //Триграмма -> номера термов, в которых она есть
+    private final List<IntList> termsByLength = new ArrayList<>(); //Длина терма -> номера термов этой длины
+    //Свободные аккумуляторы поиска: поиск выполняется под блокировкой на чтение из нескольких потоков, поэтому каждый поиск
+    //берет свой аккумулятор и возвращает его после поиска (память принадлежит индексу, а не потокам, и ограничена)
+    private final ArrayDeque<Accumulator> spareAccumulators = new ArrayDeque<>();
+
+    //Лучшие найденные книги: позиции и оценки от 0 до 1 в порядке убывания оценки, а также сколько всего книг получили оценку
+    static final class Hits {
+        final int[] positions;
+        final double[] scores;
+        final int scored;
+
+        Hits(int[] positions, double[] scores, int scored) {
+            this.positions = positions;
+            this.scores = scores;
+            this.scored = scored;
+        }
+    }
+
+    public FuzzyIndex(boolean stemming) {
+        this.stemming = stemming;
+    }
+
+    //Метод add добавляет в индекс значение атрибута книги, стоящей на указанной позиции
+    public void add(int position, String value) {
+        for (String term : terms(value)) {
+            postings.get(termId(term)).addSorted(position);
+        }
+    }
+
+    //Метод update заменяет значение атрибута книги при редактировании
+    public void update(int position, String oldValue, String newValue) {
+        Set<String> oldTerms = terms(oldValue);
+        Set<String> newTerms = terms(newValue);
+        for (String term : oldTerms) {
+            if (!newTerms.contains(term)) {
+                postings.get(termIds.get(term)).removeSorted(position);
+            }
+        }
+        for (String term : newTerms) {
+            if (!oldTerms.contains(term)) {
+                postings.get(termId(term)).addSorted(position);
+            }
+        }
+    }
+
+    //Метод search возвращает не больше limit книг, у которых больше всего слов запроса совпадают со словами значения
+    //с учетом опечаток. Оценка книги - среднее по словам запроса сходство лучшего подходящего слова (1 - точное совпадение)
+    public Hits search(String query, int limit, int bookCount) {
+        List<String> words = new ArrayList<>(terms(query));
+        if (words.isEmpty() || limit <= 0) {
+            return new Hits(new int[0], new double[0], 0);
+        }
+        Accumulator accumulator = takeAccumulator();
+        accumulator.prepare(bookCount, terms.size());
+        try {
+            for (int w = 0; w < words.size(); w++) {
+                //Термы слова упорядочены по убыванию сходства, поэтому первое попадание книги - лучшее для этого слова
+                for (long candidate : similarTerms(words.get(w), accumulator)) {
+                    float similarity = Float.intBitsToFloat((int) (candidate >>> 32));
+                    IntList list = postings.get((int) candidate);
+                    for (int i = 0; i < list.size(); i++) {
+                        int position = list.get(i);
+                        if (position < bookCount) {
+                            accumulator.add(position, w + 1, similarity);
+                        }
+                    }
+                }
+            }
+            float[] scores = accumulator.scores;
+            IntList touched = accumulator.touched;
+            //Отбор лучших limit книг кучей с наименьшей оценкой в вершине (при равной оценке выше книга с меньшей позицией)
+            PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (a, b) -> scores[a] != scores[b]
+                    ? Float.compare(scores[a], scores[b]) : Integer.compare(b, a));
+            for (int i = 0; i < touched.size(); i++) {
+                best.add(touched.get(i));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            int[] positions = new int[best.size()];
+            double[] result = new double[best.size()];
+            for (int i = positions.length - 1; i >= 0; i--) {
+                positions[i] = best.poll();
+                result[i] = scores[positions[i]] / words.size();
+            }
+            return new Hits(positions, result, touched.size());
+        } finally {
+            accumulator.reset();
+            releaseAccumulator(accumulator);
+        }
+    }
+
+    private Accumulator takeAccumulator() {
+        synchronized (spareAccumulators) {
+            Accumulator accumulator = spareAccumulators.poll();
+            return accumulator != null ? accumulator : new Accumulator();
+        }
+    }
+
+    private void releaseAccumulator(Accumulator accumulator) {
+        synchronized (spareAccumulators) {
+            if (spareAccumulators.size() < MAX_SPARE_ACCUMULATORS) {
+                spareAccumulators.push(accumulator);
+            }
+        }
+    }
+
+    //Класс Accumulator - оценки книг одного поиска в массивах по позициям книг и счетчики общих триграмм по номерам термов.
+    //Массивы переиспользуются от поиска к поиску, а после поиска обнуляются только позиции и термы, которые были затронуты,
+    //поэтому поиск не выделяет и не очищает память размером с библиотеку или словарь - его работа зависит только от найденного
+    private static final class Accumulator {
+        float[] scores = new float[0];
+        int[] lastWord = new int[0]; //Номер слова запроса (с 1), которое последним дало книге оценку
+        IntList touched = new IntList();
+        int[] shared = new int[0]; //Номер терма -> количество общих со словом запроса триграмм
+        IntList sharedTouched = new IntList();
+
+        //Метод prepare расширяет массивы до количества книг и термов (с запасом, чтобы рост библиотеки не требовал
+        //расширения при каждом поиске)
+        void prepare(int bookCount, int termCount) {
+            if (scores.length < bookCount) {
+                int capacity = Math.max(bookCount, scores.length + (scores.length >> 1));
+                scores = Arrays.copyOf(scores, capacity);
+                lastWord = Arrays.copyOf(lastWord, capacity);
+            }
+            if (shared.length < termCount) {
+                shared = Arrays.copyOf(shared, Math.max(termCount, shared.length + (shared.length >> 1)));
+            }
+        }
+
+        //Метод share увеличивает счетчик общих триграмм терма и возвращает новое значение
+        int share(int termId) {
+            if (shared[termId] == 0) {
+                sharedTouched.add(termId);
+            }
+            return ++shared[termId];
+        }
+
+        //Метод resetShared обнуляет счетчики триграмм перед следующим словом запроса
+        void resetShared() {
+            for (int i = 0; i < sharedTouched.size(); i++) {
+                shared[sharedTouched.get(i)] = 0;
+            }
+            sharedTouched.clear();
+        }
+
+        //Метод add прибавляет к оценке книги сходство слова word, если это слово еще не давало книге оценку
+        void add(int position, int word, float similarity) {
+            if (lastWord[position] == word) {
+                return;
+            }
+            if (lastWord[position] == 0) {
+                touched.add(position);
+            }
+            lastWord[position] = word;
+            scores[position] += similarity;
+        }
+
+        void reset() {
+            for (int i = 0; i < touched.size(); i++) {
+                int position = touched.get(i);
+                scores[position] = 0;
+                lastWord[position] = 0;
+            }
+            touched.clear();
+            resetShared();
+        }
+    }
+
+    //Метод similarTerms находит термы словаря на расстоянии Левенштейна не больше допустимого для длины слова
+    //Результат - упакованные в long пары (сходство, номер терма), отсортированные по убыванию сходства
+    private long[] similarTerms(String word, Accumulator accumulator) {
+        int maxDistance = word.length() <= 2 ? 0 : word.length() <= 5 ? 1 : 2;
+        if (maxDistance == 0) {
+            Integer id = termIds.get(word);
+            return id == null ? new long[0] : new long[] {pack(1f, id)};
+        }
+        //Каждая правка меняет не больше трех триграмм, поэтому у подходящего терма общих триграмм со словом не меньше threshold
+        long[] grams = distinctGrams(word);
+        int threshold = grams.length - 3 * maxDistance;
+        int[] candidates;
+        if (threshold > 0) {
+            IntList found = new IntList();
+            for (long gram : grams) {
+                IntList list = gramTerms.get(gram);
+                if (list == null) {
+                    continue;
+                }
+                for (int i = 0; i < list.size(); i++) {
+                    if (accumulator.share(list.get(i)) == threshold) {
+                        found.add(list.get(i));
+                    }
+                }
+            }
+            accumulator.resetShared();
+            candidates = found.toArray();
+        } else {
+            //У короткого слова триграмм мало и отсечение по ним не работает - проверяем только термы подходящей длины
+            IntList found = new IntList();
+            int maxLength = Math.min(termsByLength.size() - 1, word.length() + maxDistance);
+            for (int length = Math.max(1, word.length() - maxDistance); length <= maxLength; length++) {
+                IntList sameLength = termsByLength.get(length);
+                for (int i = 0; i < sameLength.size(); i++) {
+                    found.add(sameLength.get(i));
+                }
+            }
+            candidates = found.toArray();
+        }
+        IntList matched = new IntList();
+        List<Float> similarities = new ArrayList<>();
+        for (int id : candidates) {
+            String term = terms.get(id);
+            if (postings.get(id).isEmpty() || Math.abs(term.length() - word.length()) > maxDistance) {
+                continue;
+            }
+            int distance = distance(word, term, maxDistance);
+            if (distance <= maxDistance) {
+                matched.add(id);
+                similarities.add(1f - (float) distance / Math.max(word.length(), term.length()));
+            }
+        }
+        long[] result = new long[matched.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = pack(similarities.get(i), matched.get(i));
+        }
+        //Сходство положительно, поэтому порядок его битов как int совпадает с порядком значений
+        Arrays.sort(result);
+        for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+            long swap = result[i];
+            result[i] = result[j];
+            result[j] = swap;
+        }
+        return result;
+    }
+
+    private static long pack(float similarity, int termId) {
+        return ((long) Float.floatToIntBits(similarity) << 32) | termId;
+    }
+
+    //Метод distance вычисляет расстояние Левенштейна, но прекращает счет, как только оно гарантированно больше max
+    //(тогда возвращается max + 1)
+    static int distance(String a, String b, int max) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    //Метод terms разбивает значение на слова и возвращает их нормализованные термы без повторов (слова без букв пропускаются)
+    Set<String> terms(String value) {
+        Set<String> result = new LinkedHashSet<>();
+        int start = -1;
+        boolean hasLetter = false;
+        for (int i = 0; i <= value.length(); i++) {
+            char c = i < value.length() ? value.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (start < 0) {
+                    start = i;
+                    hasLetter = false;
+                }
+                hasLetter |= Character.isLetter(c);
+            } else if (start >= 0) {
+                if (hasLetter) {
+                    result.add(normalize(value.substring(start, i)));
+                }
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    //Метод normalize приводит слово к нижнему регистру, заменяет ё на е и при включенном стемминге отрезает окончание
+    String normalize(String word) {
+        String lower = word.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        if (!stemming) {
+            return lower;
+        }
+        for (String ending : ENDINGS) {
+            if (lower.length() - ending.length() >= MIN_STEM && lower.endsWith(ending)) {
+                return lower.substring(0, lower.length() - ending.length());
+            }
+        }
+        return lower;
+    }
+
+    private int termId(String term) {
+        Integer id = termIds.get(term);
+        if (id != null) {
+            return id;
+        }
+        int newId = terms.size();
+        termIds.put(term, newId);
+        terms.add(term);
+        postings.add(new IntList());
+        for (long gram : distinctGrams(term)) {
+            gramTerms.computeIfAbsent(gram, g -> new IntList()).add(newId);
+        }
+        while (termsByLength.size() <= term.length()) {
+            termsByLength.add(new IntList());
+        }
+        termsByLength.get(term.length()).add(newId);
+        return newId;
+    }
+
+    //Метод distinctGrams возвращает различные триграммы слова с границами (слово из n букв дает n триграмм)
+    private static long[] distinctGrams(String word) {
+        String padded = BOUNDARY + word + BOUNDARY;
+        long[] grams = new long[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+}
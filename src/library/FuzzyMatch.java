@@ -0,0 +1,25 @@
+package library;
+
+//Класс FuzzyMatch - книга, найденная нечетким поиском, и ее оценка сходства с запросом (от 0 до 1)
+class FuzzyMatch {
+    private final Book book;
+    private final double score;
+
+    public FuzzyMatch(Book book, double score) {
+        this.book = book;
+        this.score = score;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return "Сходство: " + Math.round(score * 100) + "% | " + book;
+    }
+}
@@ -0,0 +1,86 @@
+package library;
+
+import java.util.Arrays;
+
+//Класс IntList - растущий массив примитивных int (без упаковки в Integer), используется в индексах для хранения позиций книг
+class IntList {
+    private int[] data;
+    private int size;
+
+    //Конструктор создает пустой список с небольшой начальной емкостью
+    public IntList() {
+        data = new int[4];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        return data[index];
+    }
+
+    //Метод add добавляет значение в конец списка
+    public void add(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, size * 2);
+        }
+        data[size++] = value;
+    }
+
+    //Метод last возвращает последний элемент (список не должен быть пустым)
+    public int last() {
+        return data[size - 1];
+    }
+
+    //Метод addSorted вставляет значение в отсортированный список, сохраняя порядок (повторы не добавляются)
+    public void addSorted(int value) {
+        if (size == 0 || data[size - 1] < value) {
+            add(value);
+            return;
+        }
+        int index = Arrays.binarySearch(data, 0, size, value);
+        if (index >= 0) {
+            return;
+        }
+        index = -index - 1;
+        if (size == data.length) {
+            data = Arrays.copyOf(data, size * 2);
+        }
+        System.arraycopy(data, index, data, index + 1, size - index);
+        data[index] = value;
+        size++;
+    }
+
+    //Метод removeSorted удаляет значение из отсортированного списка (если оно там есть)
+    public void removeSorted(int value) {
+        int index = Arrays.binarySearch(data, 0, size, value);
+        if (index >= 0) {
+            System.arraycopy(data, index + 1, data, index, size - index - 1);
+            size--;
+        }
+    }
+
+    //Метод containsSorted проверяет наличие значения в отсортированном списке двоичным поиском
+    public boolean containsSorted(int value) {
+        return Arrays.binarySearch(data, 0, size, value) >= 0;
+    }
+
+    //Метод clear делает список пустым, сохраняя выделенный массив для повторного использования
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    //Метод capacity нужен для оценки занимаемой памяти
+    public int capacity() {
+        return data.length;
+    }
+}
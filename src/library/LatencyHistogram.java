@@ -0,0 +1,84 @@
+package library;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Класс LatencyHistogram - гистограмма времени выполнения в стиле HdrHistogram: значения (в наносекундах) раскладываются по корзинам,
+//ширина которых растет вместе со значением - на каждую степень двойки приходится 32 корзины. Поэтому любое время, от наносекунд
+//до часов, хранится с относительной ошибкой не больше 1/32 (около 3%) в массиве фиксированного размера, а запись значения -
+//это одно атомарное увеличение счетчика без блокировок и выделения памяти
+class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS; //Корзин на одну степень двойки
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    //Метод record добавляет в гистограмму одно значение
+    public void record(long value) {
+        counts.incrementAndGet(bucketOf(Math.max(0, value)));
+    }
+
+    //Метод percentiles возвращает значения для нескольких перцентилей (от 0 до 100) по одному снимку счетчиков:
+    //для каждого перцентиля - верхняя граница корзины, до которой набирается нужная доля значений (0, если значений нет)
+    public long[] percentiles(double... percents) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long[] values = new long[percents.length];
+        if (total == 0) {
+            return values;
+        }
+        for (int p = 0; p < percents.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(total * percents[p] / 100));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    values[p] = highestValueIn(i);
+                    break;
+                }
+            }
+        }
+        return values;
+    }
+
+    //Метод count возвращает количество записанных значений
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    //Метод reset обнуляет все корзины
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    //Метод bucketOf возвращает номер корзины: значения меньше 32 хранятся точно, у больших сохраняются старшие 6 бит
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long lowestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    private static long highestValueIn(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowestValueIn(bucket + 1) - 1;
+    }
+}
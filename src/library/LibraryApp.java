@@ -0,0 +1,450 @@
+package library;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Scanner;
+import javax.management.JMException;
+
+//Главный класс приложения - содержит точку входа программы (main метод) и реализует пользовательский интерфейс
+public class LibraryApp {
+    private static final Scanner scanner = new Scanner(System.in);  //Для чтения ввода пользователя
+    private static final LibraryManager library = new LibraryManager(); //Основной объект библиотеки
+    private static final int PAGE_SIZE = 20; //Количество книг на одной странице при просмотре списка и результатов поиска
+    private static final int FUZZY_RESULTS = 20; //Количество лучших совпадений, которые выводит нечеткий поиск
+    private static boolean jmxInBatch; //Регистрировать метрики в JMX в пакетном режиме (ключ --jmx)
+
+    //Метод main является точкой входа в программу
+    public static void main(String[] args) {
+        String batchSource = applyArguments(args);
+        //В пакетном режиме команды выполняются без меню, после чего программа завершается
+        if (batchSource != null) {
+            if (jmxInBatch) {
+                registerMetricsMBean();
+            }
+            BatchRunner.run(library, batchSource);
+            library.closeJournal();
+            return;
+        }
+        //Метрики публикуются в JMX (запуск JMX занимает около 0,3 с, поэтому в пакетном режиме - только с ключом --jmx)
+        registerMetricsMBean();
+        System.out.println("=== Менеджер библиотеки ===");
+
+        while (true) {
+            printMenu();
+            String choice = scanner.nextLine();
+
+            try {
+                switch (choice) {
+                    case "1": //Добавление книги
+                        addBookMenu();
+                        break;
+                    case "2": //Редактирование книги
+                        editBookMenu();
+                        break;
+                    case "3": //Просмотр всех книг (постранично)
+                        showPages(library.allBooks(), "Список всех книг", "В библиотеке нет книг");
+                        break;
+                    case "4": //Поиск книг
+                        searchBooksMenu();
+                        break;
+                    case "5": //Сохранение в файл
+                        saveToFileMenu();
+                        break;
+                    case "6": //Загрузка из файла
+                        loadFromFileMenu();
+                        break;
+                    case "7": //Метрики операций
+                        System.out.println("\n--- Статистика работы ---");
+                        library.statsReport().forEach(System.out::println);
+                        break;
+                    case "0": //Выход из программы
+                        System.out.println("Выход из программы");
+                        library.closeJournal();
+                        scanner.close();
+                        return;
+                    default: //Неверный ввод(не в диапазоне 0-7)
+                        System.out.println("Неверный выбор, попробуйте снова");
+                }
+            } catch (UncheckedIOException e) {
+                //Ошибка чтения файла посреди действия (например, испорченная запись отображенного каталога)
+                System.out.println("Ошибка: " + e.getCause().getMessage());
+            }
+        }
+    }
+
+    private static void registerMetricsMBean() {
+        try {
+            library.metrics().registerMBean();
+        } catch (JMException e) {
+            System.out.println("Не удалось зарегистрировать метрики в JMX: " + e.getMessage());
+        }
+    }
+
+    //Метод applyArguments применяет ключи запуска программы; возвращает источник команд пакетного режима (или null)
+    private static String applyArguments(String[] args) {
+        String batchSource = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--search-index": //Триграммный индекс для поиска по названию, автору и жанру (требует дополнительной памяти)
+                    library.setSearchIndexEnabled(true);
+                    break;
+                case "--fuzzy-index": //Построить индекс нечеткого поиска сразу при запуске, а не при первом нечетком поиске
+                    library.setFuzzyIndexEnabled(true);
+                    break;
+                case "--no-stemming": //Нечеткий поиск без отрезания окончаний слов
+                    library.setFuzzyStemming(false);
+                    break;
+                case "--mapped": //Открыть каталог .cat без загрузки (книги читаются из отображенного в память файла)
+                    if (i + 1 < args.length) {
+                        library.openMapped(args[++i]);
+                    }
+                    break;
+                case "--jmx": //Публиковать метрики в JMX и в пакетном режиме
+                    jmxInBatch = true;
+                    break;
+                case "--search-cache": //Количество разных поисков в кэше результатов (0 - без кэша)
+                    if (i + 1 < args.length) {
+                        try {
+                            library.setSearchCacheCapacity(Integer.parseInt(args[++i]));
+                        } catch (NumberFormatException e) {
+                            System.out.println("Ошибка: после --search-cache нужно указать количество записей");
+                        }
+                    }
+                    break;
+                case "--no-metrics": //Не собирать метрики операций (для сравнения накладных расходов)
+                    library.metrics().setEnabled(false);
+                    break;
+                case "--columnar": //Колоночное хранилище книг (меньше памяти на книгу)
+                    library.setColumnarStorage(true);
+                    break;
+                case "--batch": //Пакетный режим: файл с командами или "-" для стандартного ввода
+                    if (i + 1 < args.length) {
+                        batchSource = args[++i];
+                    }
+                    break;
+                case "--journal": //Журнал изменений: восстановление при запуске и запись всех изменений (базовое имя файлов)
+                    if (i + 1 < args.length) {
+                        library.openJournal(args[++i]);
+                    }
+                    break;
+                case "--import-threads": //Количество потоков для разбора файла при загрузке
+                    if (i + 1 < args.length) {
+                        try {
+                            library.setImportThreads(Integer.parseInt(args[++i]));
+                        } catch (NumberFormatException e) {
+                            System.out.println("Ошибка: после --import-threads нужно указать число потоков");
+                        }
+                    }
+                    break;
+                case "--export-threads": //Количество потоков для кодирования текстового файла при сохранении
+                    if (i + 1 < args.length) {
+                        try {
+                            library.setExportThreads(Integer.parseInt(args[++i]));
+                        } catch (NumberFormatException e) {
+                            System.out.println("Ошибка: после --export-threads нужно указать число потоков");
+                        }
+                    }
+                    break;
+                default:
+                    System.out.println("Неизвестный ключ запуска: " + args[i]);
+            }
+        }
+        return batchSource;
+    }
+
+    //Метод printMenu выводит пользователю главный интерфейс взаимодействия с программой
+    private static void printMenu() {
+        System.out.println("\n--- Меню ---");
+        System.out.println("1. Добавить книгу");
+        System.out.println("2. Редактировать книгу");
+        System.out.println("3. Показать все книги");
+        System.out.println("4. Найти книгу");
+        System.out.println("5. Сохранить в файл");
+        System.out.println("6. Загрузить из файла");
+        System.out.println("7. Статистика работы");
+        System.out.println("0. Выход");
+        System.out.print("Выберите действие: ");
+    }
+
+    //Метод addBookMenu запрашивает, считывает и проверяет на валидность вводимые пользователем данные при добавлении новой книги
+    private static void addBookMenu() {
+        //Запрашиваем атрибуты новой книги у пользователя
+        System.out.print("Введите название: ");
+        String title = scanner.nextLine().trim();
+        //Далее идут проверки на валидность для каждого вводимого атрибута, если какой-то атрибут оказался невалидным - возврат в главное меню
+        if (title.isEmpty()) {
+            System.out.println("Ошибка: название книги не может быть пустым");
+            return;
+        }
+        System.out.print("Введите автора: ");
+        String author = scanner.nextLine().trim();
+        if (author.isEmpty()) {
+            System.out.println("Ошибка: автор книги не может быть пустым");
+            return;
+        }
+
+        int year = readIntInput("Введите год издания: ");
+        if (year == 0) {
+            System.out.println("Ошибка: год издания не может быть пустым или равным 0");
+            return;
+        }
+
+        System.out.print("Введите жанр: ");
+        String genre = scanner.nextLine().trim();
+        if (genre.isEmpty()) {
+            System.out.println("Ошибка: жанр книги не может быть пустым");
+            return;
+        }
+
+        //Если все проверки пройдены - передаем данные в метод добавления книги
+        library.addBook(title, author, year, genre);
+    }
+
+    //Метод editBookMenu позволяет редактировать существующие в библиотеке книги по id
+    private static void editBookMenu() {
+        int id = readIntInput("Введите id книги для редактирования: ");
+
+        if (!library.isBookExists(id)) {
+            System.out.println("Книга с id " + id + " не найдена");
+            return;
+        }
+
+        System.out.print("Введите новое название (оставьте пустым чтобы не менять): ");
+        String title = scanner.nextLine().trim();
+
+        System.out.print("Введите нового автора (оставьте пустым чтобы не менять): ");
+        String author = scanner.nextLine().trim();
+
+        //Используем вспомогательный метод для чтения числа с возможностью пропуска
+        Integer year = readIntInputOrNull("Введите новый год издания (оставьте пустым чтобы не менять): ");
+
+        System.out.print("Введите новый жанр (оставьте пустым чтобы не менять): ");
+        String genre = scanner.nextLine().trim();
+        
+        //Передаем null для не меняемых полей
+        library.editBook(id,
+                title.isEmpty() ? null : title,    
+                author.isEmpty() ? null : author, 
+                year,                               
+                genre.isEmpty() ? null : genre);    
+    }
+
+    //Метод searchBooksMenu реализует меню поиска книг в библиотеке
+    private static void searchBooksMenu() {
+        System.out.println("\n--- Поиск книги ---");
+        System.out.println("1. По названию");
+        System.out.println("2. По автору");
+        System.out.println("3. По жанру");
+        System.out.println("4. По году издания");
+        System.out.println("5. По id");
+        System.out.println("6. По диапазону лет издания");
+        System.out.println("7. По десятилетию");
+        System.out.println("8. Составной запрос (несколько условий)");
+        System.out.println("9. Нечеткий поиск (с опечатками) по названию или автору");
+        System.out.print("Выберите атрибут для поиска: ");
+        
+        int attributeChoice;
+        try {
+            attributeChoice = Integer.parseInt(scanner.nextLine());
+            //Проверка на валидность выбора атрибута, по которому будем производить поиск
+            if (attributeChoice < 1 || attributeChoice > 9) {
+                System.out.println("Неверный выбор атрибута");
+                return;
+            }
+        } catch (NumberFormatException e) {
+            //Обработка случая когда введено не число
+            System.out.println("Ошибка: введите число от 1 до 9");
+            return;
+        }
+        if (attributeChoice == 8) {
+            queryMenu();
+            return;
+        }
+        if (attributeChoice == 9) {
+            fuzzySearchMenu();
+            return;
+        }
+
+        //Определение названия атрибута для сообщения пользователю
+        String attributeName = switch (attributeChoice) {
+            case 1 -> "названию";
+            case 2 -> "автору";
+            case 3 -> "жанру";
+            case 4 -> "году издания";
+            case 5 -> "id";
+            case 6 -> "диапазону лет (например 1850..1900)";
+            case 7 -> "десятилетию (например 1960)";
+            default -> "";
+        };
+
+        System.out.print("Введите значение для поиска по " + attributeName + ": ");
+        String searchTerm = scanner.nextLine().trim();
+
+        //Проверка на то, что поисковый запрос не пустой
+        if (searchTerm.isEmpty()) {
+            System.out.println("Поисковый запрос не может быть пустым");
+            return;
+        }
+
+        showPages(library.search(attributeChoice, searchTerm), "Найденные книги", "Книги не найдены");
+    }
+
+    //Метод queryMenu запрашивает составной запрос, выводит план его выполнения и постранично найденные книги
+    private static void queryMenu() {
+        System.out.println("Условия: название=..., автор=..., жанр=..., год=... (1867, 1850..1900 или 1960-е), id=...");
+        System.out.println("& - И (все условия группы), | - ИЛИ (любая из групп)");
+        System.out.print("Введите запрос (например: автор=Толстой & год=1860..1870 | жанр=роман): ");
+        String text = scanner.nextLine().trim();
+        if (text.isEmpty()) {
+            System.out.println("Поисковый запрос не может быть пустым");
+            return;
+        }
+        BookQuery query;
+        try {
+            query = BookQuery.parse(text);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Ошибка в запросе: " + e.getMessage());
+            return;
+        }
+        for (String line : library.explainQuery(query)) {
+            System.out.println(line);
+        }
+        showPages(library.query(query), "Найденные книги", "Книги не найдены");
+    }
+
+    //Метод fuzzySearchMenu выполняет нечеткий поиск и выводит лучшие совпадения со степенью сходства
+    private static void fuzzySearchMenu() {
+        System.out.print("Искать по названию (1) или автору (2): ");
+        String choice = scanner.nextLine().trim();
+        if (!choice.equals("1") && !choice.equals("2")) {
+            System.out.println("Неверный выбор атрибута");
+            return;
+        }
+        System.out.print("Введите запрос (допускаются опечатки): ");
+        String text = scanner.nextLine().trim();
+        if (text.isEmpty()) {
+            System.out.println("Поисковый запрос не может быть пустым");
+            return;
+        }
+        List<FuzzyMatch> matches = library.fuzzySearch(Integer.parseInt(choice), text, FUZZY_RESULTS);
+        if (matches.isEmpty()) {
+            System.out.println("Книги не найдены");
+            return;
+        }
+        System.out.println("\nНаиболее похожие книги:");
+        for (FuzzyMatch match : matches) {
+            System.out.println(match);
+        }
+    }
+
+    //Метод showPages выводит результат постранично: из библиотеки читаются только показанные страницы,
+    //поэтому просмотр можно прервать, не дожидаясь вывода всех найденных книг
+    private static void showPages(SearchResult result, String title, String emptyMessage) {
+        if (result.isEmpty()) {
+            System.out.println(emptyMessage);
+            return;
+        }
+        int pages = (result.count() + PAGE_SIZE - 1) / PAGE_SIZE;
+        System.out.println("\n" + title + " (всего: " + result.count() + "):");
+        int page = 0;
+        while (true) {
+            for (Book book : result.page(page * PAGE_SIZE, PAGE_SIZE)) {
+                System.out.println(book);
+            }
+            if (pages == 1) {
+                return;
+            }
+            //Спрашиваем, какую страницу показать дальше, пока не получим понятный ответ
+            Integer next = null;
+            while (next == null) {
+                System.out.print("Страница " + (page + 1) + " из " + pages
+                        + ". Enter - следующая, номер - перейти к странице, q - выход: ");
+                String answer = scanner.nextLine().trim();
+                if (answer.equalsIgnoreCase("q") || (answer.isEmpty() && page + 1 == pages)) {
+                    return;
+                }
+                if (answer.isEmpty()) {
+                    next = page + 1;
+                    continue;
+                }
+                try {
+                    next = Integer.parseInt(answer) - 1;
+                    if (next < 0 || next >= pages) {
+                        System.out.println("Ошибка: номер страницы должен быть от 1 до " + pages);
+                        next = null;
+                    }
+                } catch (NumberFormatException e) {
+                    System.out.println("Ошибка: введите номер страницы, q или нажмите Enter");
+                }
+            }
+            page = next;
+        }
+    }
+
+    //Метод saveToFileMenu предоставляет меню сохранения текущего списка книг из библиотеки в файл
+    private static void saveToFileMenu() {
+        System.out.print("Введите имя файла для сохранения: ");
+        String filename = scanner.nextLine().trim();
+        //Проверка имени файла на валидность
+        if (filename.isEmpty()) {
+            System.out.println("Имя файла не может быть пустым");
+            return;
+        }
+        //Может быть такое, что пользователь хочет сохранить библу в уже существующий файл, тогда даем ему выбор: перезаписать файл и потерять все данные из него или остановиться
+        if (new File(filename).exists()) {
+            System.out.print("Файл уже существует. Перезаписать? (y/n): ");
+            String answer = scanner.nextLine();
+            if (!answer.equalsIgnoreCase("y")) {
+                System.out.println("Сохранение отменено");
+                return;
+            }
+        }
+        library.saveToFile(filename);
+    }
+
+    //Метод loadFromFileMenu предоставляет меню загрузки библиотеки из файла
+    private static void loadFromFileMenu() {
+        System.out.print("Введите имя файла для загрузки: ");
+        String filename = scanner.nextLine().trim();
+        //Проверка валидности имени файла
+        if (filename.isEmpty()) {
+            System.out.println("Имя файла не может быть пустым");
+            return;
+        }
+        library.loadFromFile(filename);
+    }
+
+    //Метод readIntInput является вспомогательным и осуществляет чтение целого числа с обработкой ошибок
+    private static int readIntInput(String zapros) {
+        while (true) {
+            try {
+                System.out.print(zapros);
+                //Пытаемся преобразовать ввод в число
+                return Integer.parseInt(scanner.nextLine());
+            } catch (NumberFormatException e) {
+                //Если преобразование не удалось - сообщаем об ошибке и повторяем цикл
+                System.out.println("Ошибка: введите целое число");
+            }
+        }
+    }
+
+    //Вспомогательный метод readIntInputOrNull для чтения целого числа с возможностью пропуска
+    private static Integer readIntInputOrNull(String zapros) {
+        while (true) {
+            try {
+                System.out.print(zapros);
+                String input = scanner.nextLine().trim();
+
+                if (input.isEmpty()) {
+                    return null;
+                }
+
+                return Integer.parseInt(input);
+            } catch (NumberFormatException e) {
+                //Если преобразование не удалось - сообщаем об ошибке и повторяем цикл
+                System.out.println("Ошибка: введите целое число или оставьте пустым чтобы не менять");
+            }
+        }
+    }
+}
@@ -0,0 +1,1312 @@
+package library;
+
+import java.io.InterruptedIOException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//В рамках класса LibraryManager реализованы основные операции: добавление книги, редактирование книги, поиск книг(и) по атрибутам, сохранение и загрузка списка книг в файл(из файла)
+
+class LibraryManager {
+    //Количество книг, которое при загрузке из файла накапливается перед добавлением в библиотеку
+    private static final int IMPORT_BATCH_SIZE = 10_000;
+    //Размер участка файла, который разбирается одним потоком при параллельной загрузке (8 МБ)
+    private static final long IMPORT_CHUNK_SIZE = 8L << 20;
+    //Количество разных поисков, результаты которых хранятся в кэше по умолчанию
+    private static final int DEFAULT_SEARCH_CACHE_CAPACITY = 256;
+
+    //Хранилище книг: список объектов Book или колоночное хранилище (см. setColumnarStorage)
+    private BookStorage books;
+    //Словари авторов и жанров: у всех книг одинаковые авторы и жанры - это один экземпляр строки из словаря,
+    //а значение в нижнем регистре (для проверки дубликатов и поиска) хранится в словаре и не вычисляется для каждой книги
+    private final StringDictionary authorDictionary;
+    private final StringDictionary genreDictionary;
+    //Хранилище отображенного каталога (null, если библиотека работает без него); то же хранилище, что и books
+    //Для книг каталога поиск по id и году идет по таблицам файла, а positionsById и yearIndex содержат только изменения
+    private MappedBookStorage mapped;
+    //Заполнен ли индекс ключей bookKeys: у отображенного каталога он строится только при первой загрузке файла
+    private boolean bookKeysComplete;
+    //Индекс для проверки дубликатов: нормализованный ключ (название, автор, год) -> количество книг с таким ключом
+    private final Map<String, Integer> bookKeys;
+    //Индекс по первичному ключу: id -> позиция книги в списке books (поиск по id без перебора всего списка)
+    private final Map<Integer, Integer> positionsById;
+    //Необязательные триграммные индексы для поиска по названию, автору и жанру (null, если индексы выключены)
+    private NGramIndex[] searchIndexes;
+    //Индексы нечеткого поиска по словам названия и автора (null, пока нечеткий поиск не понадобился)
+    private FuzzyIndex[] fuzzyIndexes;
+    //Отрезать ли окончания слов при нечетком поиске
+    private boolean fuzzyStemming;
+    //Отсортированный индекс по году издания (поиск по году, диапазону лет и десятилетию)
+    private final YearIndex yearIndex;
+    //Количество потоков для разбора файла при загрузке (1 - последовательная загрузка)
+    private volatile int importThreads;
+    //Размер участка файла для одного потока при параллельной загрузке (по умолчанию IMPORT_CHUNK_SIZE)
+    private volatile long importChunkSize;
+    //Количество потоков для кодирования текстового файла при сохранении (по умолчанию - по числу процессоров)
+    private volatile int exportThreads;
+    //Журнал изменений (null, если библиотека работает без журнала)
+    private BookJournal journal;
+    //Счетчик для генерации уникальных id книг (атомарный, чтобы id можно было выдавать из разных потоков)
+    private final AtomicInteger nextId;
+    //Блокировка для работы из нескольких потоков: поиск и чтение берут блокировку на чтение и не мешают друг другу,
+    //изменения берут блокировку на запись. Книги в списке не изменяются на месте: при редактировании книга заменяется
+    //новым объектом, поэтому полученная из библиотеки книга никогда не окажется изменена наполовину
+    private final ReentrantReadWriteLock lock;
+    //Поток для сообщений библиотеки (по умолчанию консоль; в пакетном режиме - буферизованный поток)
+    private volatile PrintStream out;
+    //Метрики операций: время выполнения, просмотренные книги, показатели загрузки
+    private final LibraryMetrics metrics;
+    //Кэш результатов поиска по названию, автору и жанру (повторный одинаковый поиск не перебирает книги)
+    private final SearchCache searchCache;
+
+    //Конструктор инициализирует пустую библиотеку
+    public LibraryManager() {
+        authorDictionary = new StringDictionary();
+        genreDictionary = new StringDictionary();
+        books = new ListBookStorage(authorDictionary, genreDictionary);
+        bookKeysComplete = true;
+        bookKeys = new HashMap<>();
+        positionsById = new HashMap<>();
+        yearIndex = new YearIndex();
+        importThreads = 1;
+        importChunkSize = IMPORT_CHUNK_SIZE;
+        fuzzyStemming = true;
+        exportThreads = Runtime.getRuntime().availableProcessors();
+        //Начинаем нумерацию id с 1
+        nextId = new AtomicInteger(1);
+        lock = new ReentrantReadWriteLock();
+        out = System.out;
+        metrics = new LibraryMetrics();
+        searchCache = new SearchCache(DEFAULT_SEARCH_CACHE_CAPACITY);
+    }
+
+    public LibraryMetrics metrics() {
+        return metrics;
+    }
+
+    //Метод setSearchCacheCapacity задает, сколько последних разных поисков хранит кэш результатов (0 - кэш выключен)
+    public void setSearchCacheCapacity(int capacity) {
+        searchCache.setCapacity(capacity);
+    }
+
+    //Метод statsReport возвращает отчет команды stats: метрики операций и работа кэша поиска
+    public List<String> statsReport() {
+        List<String> report = new ArrayList<>(metrics.report());
+        report.addAll(searchCache.report());
+        return report;
+    }
+
+    //Метод setOutput задает поток, в который библиотека выводит сообщения и результаты
+    public void setOutput(PrintStream output) {
+        out = output;
+    }
+
+    //Метод addBook позволяет добавлять в библиотеку новую книгу с поочередным вводом параметром(начиная с названия и заканчивая жанром
+    //Возвращает добавленную книгу (с выданным ей id) или null, если добавление не удалось записать в журнал
+    public Book addBook(String title, String author, int year, String genre) {
+        // Все проверки валидности выполняются в addBookMenu, здесь просто создаем и добавляем книгу
+        long started = metrics.start();
+        Book newBook;
+        BookJournal logJournal;
+        long logged;
+        lock.writeLock().lock();
+        try {
+            newBook = newBook(nextId.getAndIncrement(), title, author, year, genre);
+            //Книга попадает в библиотеку только после того, как ее добавление записано в журнал
+            logJournal = journal;
+            logged = logJournal != null ? logJournal.logAdd(newBook) : 0;
+            addToLibrary(newBook);
+        } catch (IOException e) {
+            out.println("Ошибка записи в журнал, книга не добавлена: " + e.getMessage());
+            return null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        //О добавлении сообщается только после того, как запись журнала сброшена на диск
+        if (!awaitChange(logJournal, logged)) {
+            return null;
+        }
+        metrics.finish(LibraryMetrics.ADD, started, 1, title);
+        out.println("Книга добавлена: " + newBook);
+        compactJournalIfNeeded();
+        return newBook;
+    }
+
+    //Метод editBook позволяет редактировать любую книгу из библиотеки по id
+    public void editBook(int id, String title, String author, Integer year, String genre) {
+        //Идея: если пользователь в рамках какого-то атрибута ничего не ввел, то не меняем этот атрибут
+        title = title != null && !title.isEmpty() ? title : null;
+        author = author != null && !author.isEmpty() ? author : null;
+        genre = genre != null && !genre.isEmpty() ? genre : null;
+
+        long started = metrics.start();
+        Book book;
+        BookJournal logJournal = null;
+        long logged = 0;
+        lock.writeLock().lock();
+        try {
+            //Запись в журнал делается под той же блокировкой, чтобы порядок операций в журнале совпадал с порядком изменений,
+            //и до изменения книги: изменение, которое не удалось записать в журнал, не применяется
+            if (journal != null && positionOf(id) != null) {
+                logged = journal.logEdit(id, title, author, year, genre);
+                logJournal = journal;
+            }
+            book = applyEdit(id, title, author, year, genre);
+        } catch (IOException e) {
+            out.println("Ошибка записи в журнал, книга не изменена: " + e.getMessage());
+            return;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!awaitChange(logJournal, logged)) {
+            return;
+        }
+        metrics.finish(LibraryMetrics.EDIT, started, book != null ? 1 : 0, id);
+        //Если книга с указанным id не найдена - выводим сообщение об ошибке
+        if (book == null) {
+            out.println("Книга с id " + id + " не найдена");
+            return;
+        }
+        out.println("Книга изменена: " + book);
+        compactJournalIfNeeded();
+    }
+
+    //Метод applyEdit заменяет книгу измененной копией (null - поле не меняется) и обновляет индексы; возвращает новую книгу или null, если ее нет
+    //Вызывается под блокировкой на запись
+    private Book applyEdit(int id, String title, String author, Integer year, String genre) {
+        Integer position = positionOf(id);
+        if (position == null) {
+            return null;
+        }
+        Book oldBook = books.get(position);
+        //Книга каталога редактируется впервые - ее год еще не в yearIndex, а в таблице годов файла
+        boolean firstCatalogueEdit = mapped != null && mapped.isCatalogueOriginal(position);
+        Book book = new Book(id,
+                title != null ? title : oldBook.getTitle(),
+                author != null ? authorDictionary.canonical(author) : oldBook.getAuthor(),
+                year != null ? year : oldBook.getYear(),
+                genre != null ? genreDictionary.canonical(genre) : oldBook.getGenre());
+        books.set(position, book);
+
+        //Из кэша удаляются только поиски, под которые подходило старое или подходит новое значение измененного атрибута
+        if (!searchCache.isEmpty()) {
+            invalidateChanged(BookQuery.Condition.TITLE, oldBook.getTitle().toLowerCase(Locale.ROOT), book.getTitle().toLowerCase(Locale.ROOT));
+            invalidateChanged(BookQuery.Condition.AUTHOR, authorDictionary.lowerCaseOf(oldBook.getAuthor()),
+                    authorDictionary.lowerCaseOf(book.getAuthor()));
+            invalidateChanged(BookQuery.Condition.GENRE, genreDictionary.lowerCaseOf(oldBook.getGenre()),
+                    genreDictionary.lowerCaseOf(book.getGenre()));
+        }
+
+        //Ключ книги может измениться, поэтому убираем старый ключ из индекса и добавляем новый
+        removeBookKey(oldBook);
+        addBookKey(book);
+        if (firstCatalogueEdit) {
+            yearIndex.add(position, book.getYear());
+        } else {
+            yearIndex.update(position, oldBook.getYear(), book.getYear());
+        }
+        if (searchIndexes != null) {
+            searchIndexes[0].update(position, book.getTitle());
+            searchIndexes[1].update(position, authorDictionary.lowerCaseOf(book.getAuthor()));
+            searchIndexes[2].update(position, genreDictionary.lowerCaseOf(book.getGenre()));
+        }
+        if (fuzzyIndexes != null) {
+            fuzzyIndexes[0].update(position, oldBook.getTitle(), book.getTitle());
+            fuzzyIndexes[1].update(position, oldBook.getAuthor(), book.getAuthor());
+        }
+        return book;
+    }
+
+    //Метод listBooks выводит на экран список всех книг из библиотеки
+    public void listBooks() {
+        SearchResult result = allBooks();
+        if (result.isEmpty()) {
+            out.println("В библиотеке нет книг");
+            return;
+        }
+        out.println("\nСписок всех книг:");
+        printBooks(result);
+    }
+
+    //Метод searchByAttribute осуществляет поиск книг(и) по любому атрибуту
+    public void searchByAttribute(int attributeChoice, String searchTerm) {
+        SearchResult result = search(attributeChoice, searchTerm);
+
+        //Выводим результаты (уже без блокировки, книги забираются из библиотеки страницами по мере вывода)
+        if (result.isEmpty()) {
+            out.println("Книги не найдены");
+        } else {
+            out.println("\nНайденные книги:");
+            printBooks(result);
+        }
+    }
+
+    //Метод printBooks выводит книги результата построчно, не собирая их в общий список
+    private void printBooks(SearchResult result) {
+        PrintStream output = out;
+        result.stream().forEach(output::println);
+    }
+
+    //Метод findBooks возвращает найденные по атрибуту книги вместо их вывода на экран
+    public List<Book> findBooks(int attributeChoice, String searchTerm) {
+        SearchResult result = search(attributeChoice, searchTerm);
+        return result.page(0, result.count());
+    }
+
+    //Метод search выполняет поиск по атрибуту и возвращает результат с количеством найденных книг,
+    //сами книги читаются из результата страницами или потоком
+    public SearchResult search(int attributeChoice, String searchTerm) {
+        long started = metrics.start();
+        int[] positions;
+        long scanned;
+        lock.readLock().lock();
+        try {
+            //Поиск по названию, автору и жанру (перебор или триграммный индекс) сначала ищется в кэше; поиск по году и id
+            //идет через индексы и быстрее обращения к кэшу. Кэш пополняется под той же блокировкой на чтение, поэтому
+            //изменение библиотеки не может попасть между поиском и сохранением его результата
+            String lowerTerm = attributeChoice <= 3 ? searchTerm.toLowerCase(Locale.ROOT) : null;
+            positions = lowerTerm != null ? searchCache.get(attributeChoice, lowerTerm) : null;
+            if (positions != null) {
+                scanned = 0;
+            } else {
+                positions = findPositions(attributeChoice, searchTerm);
+                //При переборе хранилища просмотрены все книги, при поиске через индекс - только найденные им
+                scanned = attributeChoice <= 3 && searchIndexes == null ? books.size() : positions.length;
+                if (lowerTerm != null) {
+                    searchCache.put(attributeChoice, lowerTerm, positions);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        metrics.finish(LibraryMetrics.SEARCH, started, scanned, searchTerm);
+        return new SearchResult(this, positions, positions.length);
+    }
+
+    //Метод fuzzySearch выполняет нечеткий поиск по названию (attributeChoice = 1) или автору (2): находит книги, слова которых
+    //совпадают со словами запроса с учетом опечаток, регистра, ё/е и (при включенном стемминге) окончаний, и возвращает
+    //не больше limit лучших по оценке. Индекс нечеткого поиска строится при первом вызове, если не был построен заранее
+    public List<FuzzyMatch> fuzzySearch(int attributeChoice, String query, int limit) {
+        //Индекс есть только для названия и автора: для другого атрибута, как и в search, книги просто не находятся
+        if (attributeChoice < 1 || attributeChoice > 2) {
+            return new ArrayList<>();
+        }
+        if (fuzzyIndexes == null) {
+            setFuzzyIndexEnabled(true);
+        }
+        long started = metrics.start();
+        List<FuzzyMatch> matches = new ArrayList<>();
+        int scored = 0;
+        lock.readLock().lock();
+        try {
+            if (fuzzyIndexes != null) {
+                FuzzyIndex.Hits hits = fuzzyIndexes[attributeChoice - 1].search(query, limit, books.size());
+                for (int i = 0; i < hits.positions.length; i++) {
+                    matches.add(new FuzzyMatch(books.get(hits.positions[i]), hits.scores[i]));
+                }
+                scored = hits.scored;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        metrics.finish(LibraryMetrics.FUZZY, started, scored, query);
+        return matches;
+    }
+
+    //Метод allBooks возвращает результат со всеми книгами библиотеки на текущий момент (без копирования списка книг)
+    public SearchResult allBooks() {
+        lock.readLock().lock();
+        try {
+            return new SearchResult(this, null, books.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Метод searchByQuery выполняет составной запрос и выводит найденные книги
+    public void searchByQuery(BookQuery query) {
+        SearchResult result = query(query);
+        if (result.isEmpty()) {
+            out.println("Книги не найдены");
+        } else {
+            out.println("\nНайденные книги:");
+            printBooks(result);
+        }
+    }
+
+    //Метод query выполняет составной запрос: для каждой группы условий (И) поиск начинается с самого избирательного индекса,
+    //остальные условия проверяются только на найденных через него книгах; результаты групп (ИЛИ) объединяются
+    //Книги в результате идут в порядке добавления в библиотеку
+    public SearchResult query(BookQuery query) {
+        long started = metrics.start();
+        int[] positions;
+        long[] scanned = new long[1];
+        lock.readLock().lock();
+        try {
+            List<List<BookQuery.Condition>> groups = query.groups();
+            if (groups.size() == 1) {
+                positions = findGroupPositions(groups.get(0), scanned);
+                Arrays.sort(positions);
+            } else {
+                IntList all = new IntList();
+                for (List<BookQuery.Condition> group : groups) {
+                    for (int position : findGroupPositions(group, scanned)) {
+                        all.add(position);
+                    }
+                }
+                positions = all.toArray();
+                Arrays.sort(positions);
+                //Книга могла подойти под несколько групп - оставляем ее один раз
+                int unique = 0;
+                for (int i = 0; i < positions.length; i++) {
+                    if (unique == 0 || positions[unique - 1] != positions[i]) {
+                        positions[unique++] = positions[i];
+                    }
+                }
+                positions = Arrays.copyOf(positions, unique);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        metrics.finish(LibraryMetrics.QUERY, started, scanned[0], query);
+        return new SearchResult(this, positions, positions.length);
+    }
+
+    //Метод explainQuery возвращает план выполнения запроса: для каждой группы условий - с какого условия и индекса начинается
+    //поиск и сколько книг придется проверить
+    public List<String> explainQuery(BookQuery query) {
+        List<String> plan = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<List<BookQuery.Condition>> groups = query.groups();
+            for (int i = 0; i < groups.size(); i++) {
+                List<BookQuery.Condition> group = groups.get(i);
+                BookQuery.Condition driver = chooseDriver(group);
+                String conditions = String.join(" & ", group.stream().map(Object::toString).toList());
+                BookQuery.Condition scan = driver == null ? chooseScanCondition(group) : null;
+                if (scan != null) {
+                    plan.add("Группа " + (i + 1) + " (" + conditions + "): подходящего индекса нет, перебор хранилища по условию "
+                            + scan + ", книг: " + books.size());
+                } else if (driver == null) {
+                    plan.add("Группа " + (i + 1) + " (" + conditions + "): подходящего индекса нет, перебор всех книг: " + books.size());
+                } else {
+                    String index = switch (driver.attribute) {
+                        case BookQuery.Condition.ID -> "индекс id";
+                        case BookQuery.Condition.YEAR -> "индекс годов";
+                        default -> "триграммный индекс";
+                    };
+                    plan.add("Группа " + (i + 1) + " (" + conditions + "): начинаем с условия " + driver + " (" + index
+                            + "), проверяется книг: " + estimate(driver) + " из " + books.size());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return plan;
+    }
+
+    //Метод findGroupPositions находит позиции книг, подходящих под все условия группы (вызывается под блокировкой на чтение)
+    //и прибавляет к scanned[0] количество просмотренных книг
+    private int[] findGroupPositions(List<BookQuery.Condition> group, long[] scanned) {
+        BookQuery.Condition driver = chooseDriver(group);
+        int[] candidates = null;
+        if (driver != null) {
+            candidates = conditionPositions(driver);
+            scanned[0] += candidates.length;
+        } else {
+            //При переборе (хранилищем или по всем книгам) просматриваются все книги
+            scanned[0] += books.size();
+            //Ни одно условие не может использовать индекс - перебор по текстовому условию выполняет хранилище
+            //(колоночное хранилище проверяет автора и жанр по словарю значений, не создавая объектов Book)
+            driver = chooseScanCondition(group);
+            if (driver != null) {
+                candidates = books.findContaining(driver.attribute, driver.term);
+            }
+        }
+        IntList found = new IntList();
+        if (candidates == null) {
+            //Текстовых условий нет - проверяем все книги
+            for (int position = 0; position < books.size(); position++) {
+                if (matchesAll(books.get(position), group, null)) {
+                    found.add(position);
+                }
+            }
+        } else {
+            for (int position : candidates) {
+                if (matchesAll(books.get(position), group, driver)) {
+                    found.add(position);
+                }
+            }
+        }
+        return found.toArray();
+    }
+
+    //Метод chooseDriver выбирает условие, с которого выгоднее всего начать поиск: то, у которого индекс дает меньше всего кандидатов
+    //Возвращает null, если ни одно условие не может использовать индекс быстрее полного перебора
+    private BookQuery.Condition chooseDriver(List<BookQuery.Condition> group) {
+        BookQuery.Condition driver = null;
+        long best = books.size();
+        for (BookQuery.Condition condition : group) {
+            long estimate = estimate(condition);
+            if (estimate < best) {
+                best = estimate;
+                driver = condition;
+            }
+        }
+        return driver;
+    }
+
+    //Метод chooseScanCondition выбирает текстовое условие для перебора хранилища: автор и жанр проверяются быстрее названия
+    private static BookQuery.Condition chooseScanCondition(List<BookQuery.Condition> group) {
+        BookQuery.Condition scan = null;
+        for (BookQuery.Condition condition : group) {
+            if (condition.attribute == BookQuery.Condition.AUTHOR || condition.attribute == BookQuery.Condition.GENRE) {
+                return condition;
+            }
+            if (condition.attribute == BookQuery.Condition.TITLE && scan == null) {
+                scan = condition;
+            }
+        }
+        return scan;
+    }
+
+    //Метод estimate оценивает количество кандидатов, которое дает индекс для условия (Long.MAX_VALUE - индекса для условия нет)
+    private long estimate(BookQuery.Condition condition) {
+        switch (condition.attribute) {
+            case BookQuery.Condition.ID:
+                return positionOf(condition.from) != null ? 1 : 0;
+            case BookQuery.Condition.YEAR:
+                return yearIndex.count(condition.from, condition.to)
+                        + (mapped != null ? mapped.catalogue().yearCount(condition.from, condition.to) : 0);
+            default:
+                return searchIndexes != null ? searchIndexes[condition.attribute - 1].estimate(condition.term) : Long.MAX_VALUE;
+        }
+    }
+
+    //Метод conditionPositions возвращает позиции книг, подходящих под условие, с помощью индекса
+    private int[] conditionPositions(BookQuery.Condition condition) {
+        switch (condition.attribute) {
+            case BookQuery.Condition.ID: {
+                Integer position = positionOf(condition.from);
+                return position == null ? new int[0] : new int[] {position};
+            }
+            case BookQuery.Condition.YEAR:
+                return yearPositions(condition.from, condition.to);
+            default:
+                return searchIndexes[condition.attribute - 1].search(condition.term);
+        }
+    }
+
+    //Метод matchesAll проверяет книгу по всем условиям группы, кроме уже выполненного через индекс условия skip
+    private boolean matchesAll(Book book, List<BookQuery.Condition> group, BookQuery.Condition skip) {
+        for (BookQuery.Condition condition : group) {
+            if (condition == skip) {
+                continue;
+            }
+            //Автор и жанр сравниваются по значению в нижнем регистре из словаря
+            boolean match = switch (condition.attribute) {
+                case BookQuery.Condition.AUTHOR -> authorDictionary.lowerCaseOf(book.getAuthor()).contains(condition.term);
+                case BookQuery.Condition.GENRE -> genreDictionary.lowerCaseOf(book.getGenre()).contains(condition.term);
+                default -> condition.matches(book);
+            };
+            if (!match) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Метод booksAt возвращает книги результата с номерами от from до to (positions == null - книги подряд с позиции from)
+    List<Book> booksAt(int[] positions, int from, int to) {
+        List<Book> page = new ArrayList<>(to - from);
+        lock.readLock().lock();
+        try {
+            for (int i = from; i < to; i++) {
+                page.add(books.get(positions == null ? i : positions[i]));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return page;
+    }
+
+    //Метод findPositions возвращает позиции книг, подходящих под запрос (вызывается под блокировкой на чтение)
+    private int[] findPositions(int attributeChoice, String searchTerm) {
+        if (attributeChoice == 5) { //Поиск по id выполняется через индекс, без перебора всех книг
+            try {
+                //Преобразовываем поисковый запрос в число
+                Integer position = positionOf(Integer.parseInt(searchTerm.trim()));
+                return position == null ? new int[0] : new int[] {position};
+            } catch (NumberFormatException e) {
+                //Если запрос не число - ничего не делаем (книги не найдены)
+                return new int[0];
+            }
+        }
+        if (attributeChoice >= 4) { //Поиск по году, диапазону лет или десятилетию через индекс годов
+            int[] range = parseYearRange(attributeChoice, searchTerm);
+            return range == null ? new int[0] : yearPositions(range[0], range[1]);
+        }
+        if (searchIndexes != null) { //Поиск по названию, автору или жанру через триграммный индекс
+            return searchIndexes[attributeChoice - 1].search(searchTerm);
+        }
+
+        //Приводим запрос к нижнему регистру один раз, а не для каждой книги; перебор книг выполняет хранилище
+        return books.findContaining(attributeChoice, searchTerm.toLowerCase(Locale.ROOT));
+    }
+
+    //Метод saveToFile сохраняет список всех текущих книг из библиотеки в файл с задаваемым названием (существующий файл перезаписывается)
+    //Подтверждение перезаписи запрашивается в меню (saveToFileMenu), чтобы метод можно было вызывать без консоли
+    public void saveToFile(String filename) {
+        long started = metrics.start();
+        int saved = 0;
+        //Сохраняем список книг в файл: в двоичном формате, если у файла расширение .bin, в формате каталога для отображения
+        //в память, если расширение .cat, иначе в текстовом
+        try {
+            //Файл пишется из копии списка, поэтому на время записи библиотека не блокируется
+            List<Book> snapshot = copyBooks();
+            saved = snapshot.size();
+            //Во всех форматах файл пишется во временный и атомарно заменяет старый: сбой посередине не портит сохраненный каталог
+            Path path = Paths.get(filename);
+            if (BookSnapshot.isSnapshotFile(filename)) {
+                CatalogueWriter.replaceAtomically(path, temp -> BookSnapshot.write(temp, snapshot));
+            } else if (MappedCatalogue.isCatalogueFile(filename)) {
+                MappedCatalogue.write(path, snapshot);
+            } else {
+                CatalogueWriter.write(path, snapshot, exportThreads);
+            }
+            out.println("Данные сохранены в файл: " + filename);
+        } catch (IOException e) {
+            out.println("Ошибка при сохранении в файл: " + e.getMessage());
+        }
+        metrics.finish(LibraryMetrics.SAVE, started, saved, filename);
+    }
+
+    //Метод loadFromFile позволяет загрузить в библиотеку список книг без создания дубликатов
+    //Текстовый файл читается потоково (в кодировке UTF-8) и книги добавляются пакетами, поэтому память не зависит от размера файла
+    public void loadFromFile(String filename) {
+        long started = metrics.start();
+        BookImport bookImport = new BookImport();
+        try {
+            importFile(filename, bookImport);
+        } finally {
+            //Учитываются и загрузки, прерванные ошибкой (прочитанная до ошибки часть файла)
+            long lines = bookImport.addedCount + bookImport.duplicateCount + bookImport.errorCount;
+            metrics.recordImport(started, lines, bookImport.errorCount);
+            metrics.finish(LibraryMetrics.LOAD, started, lines, filename);
+        }
+    }
+
+    private void importFile(String filename, BookImport bookImport) {
+        IOException readError = null;
+        try {
+            if (BookSnapshot.isSnapshotFile(filename)) {
+                //Двоичный файл (.bin) разбирается без преобразования строк в числа
+                BookSnapshot.read(Paths.get(filename), bookImport);
+            } else if (MappedCatalogue.isCatalogueFile(filename)) {
+                //Файл каталога (.cat) читается по таблице записей (открыть его без загрузки можно через openMapped)
+                MappedCatalogue.read(Paths.get(filename), bookImport);
+            } else {
+                readTextFile(filename, bookImport);
+            }
+        } catch (NoSuchFileException e) {
+            //Обработка случая когда файл не найден
+            out.println("Файл не найден: " + filename);
+            return;
+        } catch (IOException e) {
+            //Обработка других ошибок ввода-вывода (уже добавленные пакеты остаются в библиотеке)
+            readError = e;
+        } catch (UncheckedIOException e) {
+            //Пакет не удалось записать в журнал - чтение файла остановлено (ошибка сохранена в bookImport)
+            if (bookImport.journalFailure == null) {
+                throw e;
+            }
+        }
+        bookImport.commit();
+        if (bookImport.journalFailure != null) {
+            out.println("Ошибка записи в журнал, загрузка остановлена: " + bookImport.journalFailure.getMessage());
+            out.println("Добавлено новых книг: " + bookImport.addedCount);
+            return;
+        }
+        if (readError != null) {
+            out.println("Ошибка при загрузке из файла: " + readError.getMessage());
+            out.println("Добавлено новых книг: " + bookImport.addedCount);
+            return;
+        }
+        compactJournalIfNeeded();
+
+        //Вывод результатов
+        out.println("Данные загружены из файла: " + filename);
+        out.println("Добавлено новых книг: " + bookImport.addedCount);
+        //Если были дубликаты - сообщаем сколько пропущено
+        if (bookImport.duplicateCount > 0) {
+            out.println("Пропущено дубликатов: " + bookImport.duplicateCount);
+        }
+    }
+
+    private void readTextFile(String filename, BookImport bookImport) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (importThreads > 1 && channel.size() > importChunkSize) {
+                readParallel(channel, bookImport);
+            } else {
+                new CatalogueReader(bookImport).read(channel, 0, channel.size());
+            }
+        }
+    }
+
+    //Метод setImportThreads задает количество потоков, которые разбирают файл при загрузке
+    public void setImportThreads(int threads) {
+        importThreads = Math.max(1, threads);
+    }
+
+    //Метод setImportChunkSize задает размер участка файла при параллельной загрузке (в тестах - маленькие участки,
+    //чтобы небольшой файл делился на много участков и дубликаты оказывались в разных участках)
+    void setImportChunkSize(long bytes) {
+        importChunkSize = Math.max(1, bytes);
+    }
+
+    //Метод setExportThreads задает количество потоков, которые кодируют книги при сохранении в текстовый файл
+    public void setExportThreads(int threads) {
+        exportThreads = Math.max(1, threads);
+    }
+
+    //Метод readParallel разбирает участки файла параллельно в пуле потоков, а результаты добавляет в библиотеку строго в порядке участков,
+    //поэтому назначение id и пропуск дубликатов в точности совпадают с последовательной загрузкой
+    private void readParallel(FileChannel channel, BookImport bookImport) throws IOException {
+        long[] bounds = CatalogueReader.splitIntoChunks(channel, importChunkSize);
+        ForkJoinPool pool = new ForkJoinPool(importThreads);
+        try {
+            //Одновременно в работе не больше двух участков на поток, чтобы память оставалась ограниченной
+            int window = importThreads * 2;
+            ArrayDeque<Future<ParsedChunk>> pending = new ArrayDeque<>();
+            int nextChunk = 0;
+            while (nextChunk < bounds.length - 1 || !pending.isEmpty()) {
+                while (nextChunk < bounds.length - 1 && pending.size() < window) {
+                    long start = bounds[nextChunk];
+                    long end = bounds[nextChunk + 1];
+                    pending.add(pool.submit(() -> ParsedChunk.parse(channel, start, end)));
+                    nextChunk++;
+                }
+                awaitChunk(pending.poll()).replay(bookImport);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static ParsedChunk awaitChunk(Future<ParsedChunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Загрузка прервана");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    //Класс ParsedChunk хранит книги (вместе с ключами для проверки дубликатов) и ошибки формата одного участка файла
+    private static class ParsedChunk implements CatalogueReader.RecordHandler {
+        private final List<Book> parsedBooks = new ArrayList<>();
+        private final List<String> keys = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+
+        static ParsedChunk parse(FileChannel channel, long start, long end) throws IOException {
+            ParsedChunk chunk = new ParsedChunk();
+            new CatalogueReader(chunk).read(channel, start, end);
+            return chunk;
+        }
+
+        @Override
+        public void record(int id, String title, String author, int year, String genre) {
+            parsedBooks.add(new Book(id, title, author, year, genre));
+            //Ключ вычисляется здесь, в рабочем потоке, чтобы не тратить на это время при последовательном слиянии
+            //(словарь авторов из рабочих потоков недоступен, поэтому автор приводится к нижнему регистру здесь же -
+            //тем же методом, которым словарь вычисляет свои значения, чтобы ключи совпадали с последовательной загрузкой)
+            keys.add(bookKey(title, StringDictionary.toLowerCase(author), year));
+        }
+
+        @Override
+        public void formatError(String message) {
+            errors.add(message);
+        }
+
+        //Метод replay передает результаты участка в загрузку в том порядке, в котором они шли в файле
+        void replay(BookImport bookImport) {
+            for (String error : errors) {
+                bookImport.formatError(error);
+            }
+            for (int i = 0; i < parsedBooks.size(); i++) {
+                bookImport.add(parsedBooks.get(i), keys.get(i));
+            }
+        }
+    }
+
+    //Класс BookImport накапливает разобранные из файла книги и добавляет их в библиотеку пакетами фиксированного размера
+    private class BookImport implements CatalogueReader.RecordHandler {
+        private final List<Book> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        private final List<String> batchKeys = new ArrayList<>(IMPORT_BATCH_SIZE);
+        private int addedCount;     //Счетчик добавленных книг
+        private int duplicateCount; //Счетчик пропущенных дубликатов
+        private int errorCount;     //Счетчик строк с ошибкой формата
+        private int cacheClearedAt; //Значение addedCount при последней очистке кэша поиска
+        private IOException journalFailure; //Ошибка записи в журнал, после которой загрузка останавливается
+
+        @Override
+        public void record(int id, String title, String author, int year, String genre) {
+            //Ключ вычисляется при добавлении пакета, когда доступен словарь авторов с их значениями в нижнем регистре
+            add(new Book(id, title, author, year, genre), null);
+        }
+
+        void add(Book book, String key) {
+            batch.add(book);
+            batchKeys.add(key);
+            if (batch.size() == IMPORT_BATCH_SIZE) {
+                commit();
+                //Исключение прерывает чтение файла, importFile сообщает об ошибке журнала
+                if (journalFailure != null) {
+                    throw new UncheckedIOException(journalFailure);
+                }
+            }
+        }
+
+        @Override
+        public void formatError(String message) {
+            //Обработка ошибок преобразования строк в числа
+            errorCount++;
+            out.println("Ошибка формата данных в файле: " + message);
+        }
+
+        //Метод commit добавляет накопленный пакет в библиотеку
+        //Блокировка на запись берется только на время добавления пакета, а не на всю загрузку, чтобы поиск не ждал конца загрузки
+        //Пакет считается добавленным, когда его записи в журнале сброшены на диск (ожидание - уже без блокировки)
+        //После ошибки журнала (она сохраняется в journalFailure) книги больше не добавляются
+        void commit() {
+            if (journalFailure != null) {
+                return;
+            }
+            BookJournal logJournal;
+            long logged;
+            lock.writeLock().lock();
+            try {
+                logJournal = journal;
+                logged = commitLocked();
+            } catch (IOException e) {
+                journalFailure = e;
+                return;
+            } finally {
+                batch.clear();
+                batchKeys.clear();
+                lock.writeLock().unlock();
+            }
+            try {
+                awaitJournal(logJournal, logged);
+            } catch (IOException e) {
+                journalFailure = e;
+            }
+        }
+
+        //Метод commitLocked добавляет книги пакета и возвращает номер последней записи журнала (0 - журнала нет или книг не добавлено)
+        //Каждая книга сначала записывается в журнал, поэтому при ошибке журнала в библиотеке остаются только записанные книги
+        private long commitLocked() throws IOException {
+            long logged = 0;
+            ensureBookKeys();
+            try {
+                for (int i = 0; i < batch.size(); i++) {
+                    Book loadedBook = batch.get(i);
+                    String key = batchKeys.get(i) != null ? batchKeys.get(i) : bookKey(loadedBook);
+                    //Проверка на дубликаты: если в библиотеке (в том числе среди уже загруженных из этого файла книг) есть такая книга, то не добавляем ее
+                    if (bookKeys.containsKey(key)) {
+                        duplicateCount++;
+                        continue;
+                    }
+                    //Назначаем книгам новые уникальные id (разобранная из файла книга заменяется книгой библиотеки с новым id)
+                    Book book = newBook(nextId.getAndIncrement(), loadedBook.getTitle(), loadedBook.getAuthor(),
+                            loadedBook.getYear(), loadedBook.getGenre());
+                    if (journal != null) {
+                        logged = journal.logAdd(book);
+                    }
+                    addToLibrary(book, key);
+                    addedCount++;
+                }
+            } finally {
+                //Проверять каждую книгу пакета по всем записям кэша дороже, чем заново выполнить поиски
+                //(кэш очищается и тогда, когда пакет прерван ошибкой журнала после части добавленных книг)
+                if (addedCount > cacheClearedAt) {
+                    searchCache.clear();
+                    cacheClearedAt = addedCount;
+                }
+            }
+            return logged;
+        }
+    }
+
+    //Метод для проверки существования книги в библиотеке по id
+    public boolean isBookExists(int id) {
+        lock.readLock().lock();
+        try {
+            return positionOf(id) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Метод findById возвращает книгу с указанным id (или null, если такой книги нет) вместо вывода ее на экран
+    public Book findById(int id) {
+        lock.readLock().lock();
+        try {
+            Integer position = positionOf(id);
+            return position == null ? null : books.get(position);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Метод findByYearRange возвращает книги с годом издания от from до to включительно, упорядоченные по году
+    public List<Book> findByYearRange(int from, int to) {
+        lock.readLock().lock();
+        try {
+            int[] positions = yearPositions(from, to);
+            List<Book> result = new ArrayList<>(positions.length);
+            for (int position : positions) {
+                result.add(books.get(position));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Метод parseYearRange разбирает поисковый запрос по году в диапазон {от, до}: точный год (4), "от..до" (6) или десятилетие (7)
+    //Возвращает null, если запрос не удалось разобрать
+    static int[] parseYearRange(int attributeChoice, String searchTerm) {
+        try {
+            switch (attributeChoice) {
+                case 4: {
+                    int year = Integer.parseInt(searchTerm.trim());
+                    return new int[] {year, year};
+                }
+                case 6: {
+                    int separator = searchTerm.indexOf("..");
+                    if (separator < 0) {
+                        return null;
+                    }
+                    int from = Integer.parseInt(searchTerm.substring(0, separator).trim());
+                    int to = Integer.parseInt(searchTerm.substring(separator + 2).trim());
+                    return new int[] {Math.min(from, to), Math.max(from, to)};
+                }
+                case 7: {
+                    //Допускаем запись вида "1960" и "1960-е"
+                    String digits = searchTerm.trim();
+                    if (digits.endsWith("-е")) {
+                        digits = digits.substring(0, digits.length() - 2);
+                    }
+                    int decade = Math.floorDiv(Integer.parseInt(digits), 10) * 10;
+                    return new int[] {decade, decade + 9};
+                }
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    //Метод openMapped открывает заранее сохраненный каталог (файл .cat) без загрузки: книги читаются прямо из отображенного
+    //в память файла, поэтому открытие занимает одинаковое время при любом размере каталога, а книги не занимают места в куче
+    //Изменения и новые книги хранятся в памяти и не записываются в файл каталога (сохранить их можно через saveToFile)
+    public void openMapped(String filename) {
+        lock.writeLock().lock();
+        try {
+            if (books.size() > 0 || journal != null) {
+                out.println("Каталог можно открыть только в пустой библиотеке без журнала");
+                return;
+            }
+            MappedCatalogue catalogue = MappedCatalogue.open(Paths.get(filename));
+            mapped = new MappedBookStorage(catalogue, authorDictionary, genreDictionary);
+            books = mapped;
+            searchCache.clear();
+            //Индекс ключей для проверки дубликатов строится по книгам каталога только при загрузке файла
+            bookKeysComplete = catalogue.size() == 0;
+            nextId.accumulateAndGet(catalogue.maxId() + 1, Math::max);
+            if (searchIndexes != null) {
+                //Триграммный индекс строится по всем книгам каталога и занимает память пропорционально его размеру
+                searchIndexes = null;
+                setSearchIndexEnabled(true);
+            }
+            if (fuzzyIndexes != null) {
+                buildFuzzyIndexes();
+            }
+            out.println("Каталог открыт: " + filename + ", книг: " + catalogue.size());
+        } catch (NoSuchFileException e) {
+            out.println("Файл не найден: " + filename);
+        } catch (IOException e) {
+            out.println("Ошибка при открытии каталога: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Метод setColumnarStorage переключает библиотеку на колоночное хранилище книг (true) или на список объектов Book (false)
+    //Колоночное хранилище занимает в несколько раз меньше памяти на книгу, но объект Book создается при каждом обращении к книге
+    public void setColumnarStorage(boolean columnar) {
+        lock.writeLock().lock();
+        try {
+            if (columnar == books instanceof ColumnarBookStorage) {
+                return;
+            }
+            if (mapped != null) {
+                out.println("Хранилище нельзя сменить, пока открыт отображенный каталог");
+                return;
+            }
+            BookStorage storage = columnar
+                    ? new ColumnarBookStorage(authorDictionary, genreDictionary)
+                    : new ListBookStorage(authorDictionary, genreDictionary);
+            //Книги переносятся в том же порядке, поэтому позиции в индексах остаются верными
+            for (int position = 0; position < books.size(); position++) {
+                storage.add(books.get(position));
+            }
+            books = storage;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Метод setSearchIndexEnabled включает (с построением по текущим книгам) или выключает триграммные индексы для поиска по названию, автору и жанру
+    public void setSearchIndexEnabled(boolean enabled) {
+        lock.writeLock().lock();
+        try {
+            if (!enabled) {
+                searchIndexes = null;
+                return;
+            }
+            if (searchIndexes != null) {
+                return;
+            }
+            searchIndexes = new NGramIndex[] {new NGramIndex(), new NGramIndex(), new NGramIndex()};
+            for (int position = 0; position < books.size(); position++) {
+                addToSearchIndexes(position, books.get(position));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Метод setFuzzyIndexEnabled строит (true) или удаляет (false) индексы нечеткого поиска по названию и автору
+    //Построенные индексы обновляются при добавлении, редактировании и загрузке книг
+    public void setFuzzyIndexEnabled(boolean enabled) {
+        lock.writeLock().lock();
+        try {
+            if (!enabled) {
+                fuzzyIndexes = null;
+            } else if (fuzzyIndexes == null) {
+                buildFuzzyIndexes();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Метод setFuzzyStemming включает или выключает отрезание окончаний при нечетком поиске (построенные индексы перестраиваются)
+    public void setFuzzyStemming(boolean stemming) {
+        lock.writeLock().lock();
+        try {
+            fuzzyStemming = stemming;
+            if (fuzzyIndexes != null) {
+                buildFuzzyIndexes();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void buildFuzzyIndexes() {
+        fuzzyIndexes = new FuzzyIndex[] {new FuzzyIndex(fuzzyStemming), new FuzzyIndex(fuzzyStemming)};
+        for (int position = 0; position < books.size(); position++) {
+            addToFuzzyIndexes(position, books.get(position));
+        }
+    }
+
+    private void addToFuzzyIndexes(int position, Book book) {
+        fuzzyIndexes[0].add(position, book.getTitle());
+        fuzzyIndexes[1].add(position, book.getAuthor());
+    }
+
+    //Метод searchIndexMemoryUsage возвращает приблизительный объем памяти триграммных индексов в байтах (0, если индексы выключены)
+    public long searchIndexMemoryUsage() {
+        lock.readLock().lock();
+        try {
+            if (searchIndexes == null) {
+                return 0;
+            }
+            long bytes = 0;
+            for (NGramIndex index : searchIndexes) {
+                bytes += index.memoryFootprint();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Метод openJournal подключает журнал изменений: восстанавливает библиотеку из последнего снимка и журналов с базовым именем base,
+    //после чего все добавления и изменения книг дописываются в журнал
+    public void openJournal(String base) {
+        lock.writeLock().lock();
+        try {
+            if (journal != null || books.size() > 0 || mapped != null) {
+                out.println("Журнал можно подключить только к пустой библиотеке");
+                return;
+            }
+            journal = BookJournal.open(Paths.get(base), this);
+            out.println("Журнал подключен: " + base + ", восстановлено книг: " + books.size());
+        } catch (IOException e) {
+            out.println("Ошибка при открытии журнала: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Метод closeJournal сбрасывает журнал на диск и отключает его
+    public void closeJournal() {
+        lock.writeLock().lock();
+        try {
+            if (journal == null) {
+                return;
+            }
+            journal.close();
+            reportCompactionFailure(journal);
+        } catch (IOException e) {
+            out.println("Ошибка при закрытии журнала: " + e.getMessage());
+        } finally {
+            journal = null;
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Метод compactJournal начинает новый журнал и в фоне сохраняет текущее состояние библиотеки в снимок
+    public void compactJournal() {
+        //Блокировка на запись гарантирует, что между копированием списка и сменой файла журнала нет изменений
+        lock.writeLock().lock();
+        try {
+            if (journal == null) {
+                return;
+            }
+            //Копия списка нужна, чтобы фоновая запись снимка не видела последующих изменений (сами книги не изменяются)
+            if (!journal.compact(books.toList())) {
+                out.println("Сжатие журнала уже выполняется");
+            }
+        } catch (IOException e) {
+            out.println("Ошибка при сжатии журнала: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compactJournalIfNeeded() {
+        BookJournal current = journal;
+        if (current == null) {
+            return;
+        }
+        reportCompactionFailure(current);
+        if (current.needsCompaction()) {
+            compactJournal();
+        }
+    }
+
+    private void reportCompactionFailure(BookJournal target) {
+        IOException failure = target.takeCompactionFailure();
+        if (failure != null) {
+            out.println("Ошибка при сжатии журнала: " + failure.getMessage());
+        }
+    }
+
+    //Метод awaitJournal ждет, пока запись журнала с номером sequence будет сброшена на диск (без журнала ничего не делает)
+    //Вызывается после снятия блокировки на запись, чтобы изменения из нескольких потоков сбрасывались одним пакетом
+    private static void awaitJournal(BookJournal target, long sequence) throws IOException {
+        if (target != null && sequence != 0) {
+            target.awaitDurable(sequence);
+        }
+    }
+
+    //Метод awaitChange ждет записи журнала для addBook и editBook; если сбросить запись на диск не удалось, сообщает об этом
+    //и возвращает false (изменение уже видно в библиотеке, но не сохранено, а журнал после ошибки не принимает новых записей)
+    private boolean awaitChange(BookJournal target, long sequence) {
+        try {
+            awaitJournal(target, sequence);
+            return true;
+        } catch (IOException e) {
+            out.println("Ошибка записи в журнал, изменение не сохранено на диске: " + e.getMessage());
+            return false;
+        }
+    }
+
+    //Методы restoreBook и restoreEdit применяются при восстановлении из журнала: книга сохраняет свой id, дубликаты не проверяются
+    void restoreBook(int id, String title, String author, int year, String genre) {
+        addToLibrary(newBook(id, title, author, year, genre));
+        nextId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    void restoreEdit(int id, String title, String author, Integer year, String genre) {
+        applyEdit(id, title, author, year, genre);
+    }
+
+    //Метод positionOf возвращает позицию книги с указанным id или null (вызывается под блокировкой)
+    //Книги каталога ищутся в таблице id файла, остальные - в positionsById
+    private Integer positionOf(int id) {
+        Integer position = positionsById.get(id);
+        if (position == null && mapped != null) {
+            int catalogPosition = mapped.catalogue().positionOf(id);
+            return catalogPosition >= 0 ? catalogPosition : null;
+        }
+        return position;
+    }
+
+    //Метод yearPositions возвращает позиции книг с годом от from до to, упорядоченные по году (вызывается под блокировкой)
+    //В режиме каталога неизмененные книги каталога берутся из таблицы годов файла, остальные - из yearIndex, списки сливаются
+    private int[] yearPositions(int from, int to) {
+        int[] positions = yearIndex.range(from, to);
+        if (mapped == null) {
+            return positions;
+        }
+        MappedCatalogue catalogue = mapped.catalogue();
+        int[] catalogPositions = catalogue.yearRange(from, to);
+        IntList result = new IntList();
+        int i = 0;
+        int j = 0;
+        while (i < catalogPositions.length || j < positions.length) {
+            if (i < catalogPositions.length && !mapped.isCatalogueOriginal(catalogPositions[i])) {
+                i++; //Отредактированная книга каталога находится в yearIndex со своим новым годом
+            } else if (j == positions.length || (i < catalogPositions.length
+                    && precedes(catalogue.year(catalogPositions[i]), catalogPositions[i],
+                            books.get(positions[j]).getYear(), positions[j]))) {
+                result.add(catalogPositions[i++]);
+            } else {
+                result.add(positions[j++]);
+            }
+        }
+        return result.toArray();
+    }
+
+    //Книги одного года в yearIndex и в таблице годов упорядочены по позиции, поэтому слияние сравнивает пары (год, позиция)
+    private static boolean precedes(int year, int position, int otherYear, int otherPosition) {
+        return year < otherYear || (year == otherYear && position < otherPosition);
+    }
+
+    //Метод ensureBookKeys заполняет индекс ключей по всем книгам, если он еще не заполнен (вызывается под блокировкой на запись)
+    //У отображенного каталога это происходит при первой загрузке файла, которой нужна проверка дубликатов
+    private void ensureBookKeys() {
+        if (bookKeysComplete) {
+            return;
+        }
+        for (int position = 0; position < books.size(); position++) {
+            bookKeys.merge(bookKey(books.get(position)), 1, Integer::sum);
+        }
+        bookKeysComplete = true;
+    }
+
+    //Метод copyBooks возвращает копию списка книг на текущий момент
+    private List<Book> copyBooks() {
+        lock.readLock().lock();
+        try {
+            return books.toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Метод newBook создает книгу для добавления в библиотеку: автор и жанр заменяются экземплярами из словарей,
+    //чтобы все книги одного автора ссылались на одну строку (вызывается под блокировкой на запись)
+    private Book newBook(int id, String title, String author, int year, String genre) {
+        return new Book(id, title, authorDictionary.canonical(author), year, genreDictionary.canonical(genre));
+    }
+
+    //Метод addToLibrary добавляет готовую книгу (созданную методом newBook) в список и во все индексы (вызывается под блокировкой на запись)
+    //В журнал книгу записывают вызывающие методы - до добавления, чтобы книга, не попавшая в журнал, не попала и в библиотеку
+    private void addToLibrary(Book book) {
+        addToLibrary(book, bookKey(book));
+        //Новая книга попадает только в поиски, под которые подходят ее значения, - только они и удаляются из кэша
+        //(при загрузке файла кэш очищается целиком один раз на пакет, см. BookImport)
+        if (!searchCache.isEmpty()) {
+            searchCache.invalidate(BookQuery.Condition.TITLE, book.getTitle().toLowerCase(Locale.ROOT));
+            searchCache.invalidate(BookQuery.Condition.AUTHOR, authorDictionary.lowerCaseOf(book.getAuthor()));
+            searchCache.invalidate(BookQuery.Condition.GENRE, genreDictionary.lowerCaseOf(book.getGenre()));
+        }
+    }
+
+    //Метод invalidateChanged удаляет из кэша поиски по атрибуту, если его значение изменилось
+    private void invalidateChanged(int attribute, String oldLower, String newLower) {
+        if (!oldLower.equals(newLower)) {
+            searchCache.invalidate(attribute, oldLower);
+            searchCache.invalidate(attribute, newLower);
+        }
+    }
+
+    private void addToLibrary(Book book, String key) {
+        int position = books.size();
+        books.add(book);
+        positionsById.put(book.getId(), position);
+        if (bookKeysComplete) {
+            bookKeys.merge(key, 1, Integer::sum);
+        }
+        yearIndex.add(position, book.getYear());
+        if (searchIndexes != null) {
+            addToSearchIndexes(position, book);
+        }
+        if (fuzzyIndexes != null) {
+            addToFuzzyIndexes(position, book);
+        }
+    }
+
+    private void addToSearchIndexes(int position, Book book) {
+        searchIndexes[0].add(position, book.getTitle());
+        //Для автора и жанра в индекс передается строка в нижнем регистре из словаря, поэтому индекс хранит ее же, а не свою копию
+        searchIndexes[1].add(position, authorDictionary.lowerCaseOf(book.getAuthor()));
+        searchIndexes[2].add(position, genreDictionary.lowerCaseOf(book.getGenre()));
+    }
+
+    //Метод bookKey строит нормализованный ключ книги для поиска дубликатов (регистр не учитывается)
+    private String bookKey(Book book) {
+        return bookKey(book.getTitle(), authorDictionary.lowerCaseOf(book.getAuthor()), book.getYear());
+    }
+
+    private static String bookKey(String title, String lowerAuthor, int year) {
+        return StringDictionary.toLowerCase(title) + '\n' + lowerAuthor + '\n' + year;
+    }
+
+    //Вспомогательные методы для поддержания индекса ключей в актуальном состоянии
+    private void addBookKey(Book book) {
+        if (!bookKeysComplete) {
+            return;
+        }
+        bookKeys.merge(bookKey(book), 1, Integer::sum);
+    }
+
+    private void removeBookKey(Book book) {
+        if (!bookKeysComplete) {
+            return;
+        }
+        String key = bookKey(book);
+        //Одинаковые книги можно добавить вручную, поэтому храним количество и удаляем ключ только при обнулении
+        bookKeys.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+}
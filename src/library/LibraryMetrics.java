@@ -0,0 +1,279 @@
+package library;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+//Класс LibraryMetrics - встроенные метрики библиотеки. По каждой операции (загрузка, сохранение, поиск, составной запрос,
+//добавление и редактирование книги, нечеткий поиск) считаются количество вызовов, время выполнения (гистограмма LatencyHistogram)
+//и количество просмотренных книг, по загрузке - прочитанные строки, ошибки формата и скорость чтения
+//Счетчики - LongAdder и атомарные массивы без блокировок, поэтому метрики можно писать из нескольких потоков поиска одновременно
+//Метрики выводятся командой stats (пункт меню и пакетный режим), доступны через JMX как library:type=LibraryMetrics,
+//а операции дольше 20 мс записываются событиями JFR library.SlowOperation, если JFR запущен
+class LibraryMetrics {
+    //Значение start для выключенных метрик
+    static final long NOT_STARTED = Long.MIN_VALUE;
+    //Операции не короче этого времени записываются в JFR
+    private static final long SLOW_OPERATION_NANOS = 20_000_000;
+    //Номера операций
+    static final int LOAD = 0;
+    static final int SAVE = 1;
+    static final int SEARCH = 2;
+    static final int QUERY = 3;
+    static final int ADD = 4;
+    static final int EDIT = 5;
+    static final int FUZZY = 6;
+    private static final String[] NAMES = {"load", "save", "search", "query", "add", "edit", "fuzzy"};
+    static final String OBJECT_NAME = "library:type=LibraryMetrics";
+
+    //Событие JFR о медленной операции. Оно создается уже после операции и только если JFR запущен: загрузка классов JFR
+    //занимает сотни миллисекунд, а быстрым операциям событие не нужно. Поэтому время события - момент завершения операции,
+    //а ее длительность записывается в поле operationTime (поле duration есть у всех событий JFR)
+    @Name("library.SlowOperation")
+    @Label("Медленная операция библиотеки")
+    @Category("Library")
+    @StackTrace(false)
+    private static class SlowOperationEvent extends Event {
+        @Label("Операция")
+        String operation;
+        @Label("Параметры")
+        @Description("Поисковый запрос или имя файла")
+        String details;
+        @Label("Длительность")
+        @Timespan(Timespan.NANOSECONDS)
+        long operationTime;
+        @Label("Просмотрено книг")
+        long recordsScanned;
+    }
+
+    //Метрики одной операции (количество вызовов - это количество значений в гистограмме, отдельный счетчик не нужен:
+    //на самых быстрых операциях каждое атомарное сложение заметно)
+    private static class OperationStats {
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder recordsScanned = new LongAdder();
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        void record(long nanos, long scanned) {
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            recordsScanned.add(scanned);
+            histogram.record(nanos);
+        }
+
+        //Метод percentiles возвращает перцентили времени: верхняя граница корзины гистограммы, но не больше точного максимума
+        long[] percentiles(double... percents) {
+            long[] values = histogram.percentiles(percents);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Math.min(values[i], maxNanos.get());
+            }
+            return values;
+        }
+
+        void reset() {
+            totalNanos.reset();
+            maxNanos.reset();
+            recordsScanned.reset();
+            histogram.reset();
+        }
+    }
+
+    private final OperationStats[] operations = new OperationStats[NAMES.length];
+    private final LongAdder importedLines = new LongAdder(); //Прочитанные при загрузке строки (записи) файлов
+    private final LongAdder parseErrors = new LongAdder();   //Строки с ошибкой формата
+    private final LongAdder importNanos = new LongAdder();   //Суммарное время загрузок
+    private volatile boolean enabled = true;
+
+    public LibraryMetrics() {
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = new OperationStats();
+        }
+    }
+
+    //Метод setEnabled включает или выключает сбор метрик (выключенные метрики стоят одну проверку флага на операцию)
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    //Метод start отмечает начало операции; результат передается в finish после ее завершения
+    public long start() {
+        return enabled ? System.nanoTime() : NOT_STARTED;
+    }
+
+    //Метод finish записывает время и количество просмотренных книг операции; details (запрос или имя файла) преобразуется
+    //в строку, только если операция попадает в JFR
+    public void finish(int operation, long start, long scanned, Object details) {
+        if (start == NOT_STARTED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        operations[operation].record(elapsed, scanned);
+        if (elapsed >= SLOW_OPERATION_NANOS && FlightRecorder.isInitialized()) {
+            SlowOperationEvent event = new SlowOperationEvent();
+            if (event.isEnabled()) {
+                event.operation = NAMES[operation];
+                event.details = String.valueOf(details);
+                event.operationTime = elapsed;
+                event.recordsScanned = scanned;
+                event.commit();
+            }
+        }
+    }
+
+    //Метод recordImport учитывает прочитанные загрузкой (начатой в start) строки и ошибки формата
+    public void recordImport(long start, long lines, long errors) {
+        if (start == NOT_STARTED) {
+            return;
+        }
+        importedLines.add(lines);
+        parseErrors.add(errors);
+        importNanos.add(System.nanoTime() - start);
+    }
+
+    //Метод reset обнуляет все метрики
+    public void reset() {
+        for (OperationStats stats : operations) {
+            stats.reset();
+        }
+        importedLines.reset();
+        parseErrors.reset();
+        importNanos.reset();
+    }
+
+    //Метод report возвращает строки отчета: по каждой выполнявшейся операции - количество, среднее время, перцентили,
+    //максимум и просмотренные книги, затем показатели загрузки
+    public List<String> report() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-8s %8s %12s %10s %10s %10s %12s %14s", "операция", "кол-во", "среднее, мкс",
+                "p50, мкс", "p90, мкс", "p99, мкс", "макс, мкс", "просм. книг"));
+        for (int i = 0; i < operations.length; i++) {
+            OperationStats stats = operations[i];
+            long count = stats.histogram.count();
+            if (count == 0) {
+                continue;
+            }
+            long[] percentiles = stats.percentiles(50, 90, 99);
+            lines.add(String.format("%-8s %8d %12.1f %10.1f %10.1f %10.1f %12.1f %14d", NAMES[i], count,
+                    stats.totalNanos.sum() / 1e3 / count, percentiles[0] / 1e3, percentiles[1] / 1e3, percentiles[2] / 1e3,
+                    stats.maxNanos.get() / 1e3, stats.recordsScanned.sum()));
+        }
+        if (lines.size() == 1) {
+            lines.set(0, "Операций пока не было");
+        }
+        if (importedLines.sum() > 0 || parseErrors.sum() > 0) {
+            lines.add("Загрузка: прочитано записей " + importedLines.sum() + ", ошибок формата " + parseErrors.sum()
+                    + ", записей в секунду " + importLinesPerSecond());
+        }
+        if (!enabled) {
+            lines.add("Сбор метрик выключен");
+        }
+        return lines;
+    }
+
+    private long importLinesPerSecond() {
+        long nanos = importNanos.sum();
+        return nanos == 0 ? 0 : (long) (importedLines.sum() * 1e9 / nanos);
+    }
+
+    //Метод registerMBean регистрирует метрики в JMX (их можно смотреть, например, в JConsole)
+    public void registerMBean() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), new ObjectName(OBJECT_NAME));
+    }
+
+    //Класс MetricsMBean публикует метрики в JMX как атрибуты только для чтения вида SearchCount, SearchP99Micros
+    //и операцию reset
+    private class MetricsMBean implements DynamicMBean {
+        private final Map<String, LongSupplier> attributes = new LinkedHashMap<>();
+
+        MetricsMBean() {
+            for (int i = 0; i < NAMES.length; i++) {
+                OperationStats stats = operations[i];
+                String prefix = Character.toUpperCase(NAMES[i].charAt(0)) + NAMES[i].substring(1);
+                attributes.put(prefix + "Count", stats.histogram::count);
+                attributes.put(prefix + "MeanMicros", () -> stats.totalNanos.sum() / 1000 / Math.max(1, stats.histogram.count()));
+                attributes.put(prefix + "P50Micros", () -> stats.percentiles(50)[0] / 1000);
+                attributes.put(prefix + "P99Micros", () -> stats.percentiles(99)[0] / 1000);
+                attributes.put(prefix + "MaxMicros", () -> stats.maxNanos.get() / 1000);
+                attributes.put(prefix + "RecordsScanned", stats.recordsScanned::sum);
+            }
+            attributes.put("ImportedLines", importedLines::sum);
+            attributes.put("ParseErrors", parseErrors::sum);
+            attributes.put("ImportLinesPerSecond", LibraryMetrics.this::importLinesPerSecond);
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            LongSupplier value = attributes.get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value.getAsLong();
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Атрибут только для чтения: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] names) {
+            AttributeList list = new AttributeList();
+            for (String name : names) {
+                LongSupplier value = attributes.get(name);
+                if (value != null) {
+                    list.add(new Attribute(name, value.getAsLong()));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList list) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String action, Object[] params, String[] signature) throws ReflectionException {
+            if (!action.equals("reset")) {
+                throw new ReflectionException(new NoSuchMethodException(action));
+            }
+            reset();
+            return null;
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            MBeanAttributeInfo[] infos = attributes.keySet().stream()
+                    .map(name -> new MBeanAttributeInfo(name, "long", name, true, false, false))
+                    .toArray(MBeanAttributeInfo[]::new);
+            MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Обнулить метрики", new MBeanParameterInfo[0],
+                    "void", MBeanOperationInfo.ACTION);
+            return new MBeanInfo(LibraryMetrics.class.getName(), "Метрики библиотеки", infos, null,
+                    new MBeanOperationInfo[] {reset}, null);
+        }
+    }
+}
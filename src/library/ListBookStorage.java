@@ -0,0 +1,75 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+//Класс ListBookStorage - хранилище по умолчанию: список объектов Book
+class ListBookStorage implements BookStorage {
+    private final List<Book> books = new ArrayList<>();
+    //Словари авторов и жанров LibraryManager (авторы и жанры книг - строки из этих словарей)
+    private final StringDictionary authorDictionary;
+    private final StringDictionary genreDictionary;
+
+    public ListBookStorage(StringDictionary authorDictionary, StringDictionary genreDictionary) {
+        this.authorDictionary = authorDictionary;
+        this.genreDictionary = genreDictionary;
+    }
+
+    @Override
+    public int size() {
+        return books.size();
+    }
+
+    @Override
+    public Book get(int position) {
+        return books.get(position);
+    }
+
+    @Override
+    public void add(Book book) {
+        books.add(book);
+    }
+
+    @Override
+    public void set(int position, Book book) {
+        books.set(position, book);
+    }
+
+    @Override
+    public int[] findContaining(int attribute, String lowerTerm) {
+        IntList found = new IntList();
+        if (attribute == 1) { //Поиск по названию
+            for (int position = 0; position < books.size(); position++) {
+                //Здесь при проверке на совпадение не учитываем регистр
+                if (books.get(position).getTitle().toLowerCase(Locale.ROOT).contains(lowerTerm)) {
+                    found.add(position);
+                }
+            }
+            return found.toArray();
+        }
+
+        //Поиск по автору или жанру: подстрока проверяется один раз для каждого значения словаря (в нижнем регистре из словаря),
+        //а для книги остается найти код ее значения
+        StringDictionary dictionary = attribute == 2 ? authorDictionary : genreDictionary;
+        boolean[] matches = new boolean[dictionary.size()];
+        for (int code = 0; code < matches.length; code++) {
+            matches[code] = dictionary.lowerCase(code).contains(lowerTerm);
+        }
+        for (int position = 0; position < books.size(); position++) {
+            Book book = books.get(position);
+            String value = attribute == 2 ? book.getAuthor() : book.getGenre();
+            int code = dictionary.code(value);
+            if (code >= 0 ? matches[code] : value.toLowerCase(Locale.ROOT).contains(lowerTerm)) {
+                found.add(position);
+            }
+        }
+        return found.toArray();
+    }
+
+    @Override
+    public List<Book> toList() {
+        //Книги не изменяются на месте, поэтому достаточно скопировать ссылки
+        return new ArrayList<>(books);
+    }
+}
@@ -0,0 +1,107 @@
+package library;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+//Класс MappedBookStorage - хранилище для режима отображенного каталога: книги каталога (позиции 0..n-1) читаются из файла,
+//а изменения хранятся в небольшом наложении в куче: отредактированные книги каталога и книги, добавленные после открытия
+class MappedBookStorage implements BookStorage {
+    private final MappedCatalogue catalogue;
+    private final Map<Integer, Book> edited = new HashMap<>(); //Позиция книги каталога -> ее отредактированная версия
+    private final BitSet editedPositions = new BitSet();      //Те же позиции - для быстрой проверки при переборе каталога
+    private final ListBookStorage added;                      //Книги, добавленные после открытия (позиции с n)
+
+    public MappedBookStorage(MappedCatalogue catalogue, StringDictionary authorDictionary, StringDictionary genreDictionary) {
+        this.catalogue = catalogue;
+        this.added = new ListBookStorage(authorDictionary, genreDictionary);
+    }
+
+    public MappedCatalogue catalogue() {
+        return catalogue;
+    }
+
+    //Метод isCatalogueOriginal проверяет, что позиция принадлежит каталогу и книга на ней не изменялась
+    //(для таких книг верны таблицы id и годов файла)
+    public boolean isCatalogueOriginal(int position) {
+        return position < catalogue.size() && !editedPositions.get(position);
+    }
+
+    @Override
+    public int size() {
+        return catalogue.size() + added.size();
+    }
+
+    @Override
+    public Book get(int position) {
+        if (position >= catalogue.size()) {
+            return added.get(position - catalogue.size());
+        }
+        if (editedPositions.get(position)) {
+            return edited.get(position);
+        }
+        return catalogue.get(position);
+    }
+
+    @Override
+    public void add(Book book) {
+        added.add(book);
+    }
+
+    @Override
+    public void set(int position, Book book) {
+        if (position >= catalogue.size()) {
+            added.set(position - catalogue.size(), book);
+            return;
+        }
+        edited.put(position, book);
+        editedPositions.set(position);
+    }
+
+    @Override
+    public int[] findContaining(int attribute, String lowerTerm) {
+        IntList found = new IntList();
+        //Книги каталога проверяются прямо в байтах файла, без создания строк
+        int field = attribute == 1 ? MappedCatalogue.TITLE : attribute == 2 ? MappedCatalogue.AUTHOR : MappedCatalogue.GENRE;
+        byte[] term = lowerTerm.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[256];
+        byte[] folded = new byte[256];
+        for (int position = 0; position < catalogue.size(); position++) {
+            if (editedPositions.get(position)) {
+                Book book = edited.get(position);
+                String value = attribute == 1 ? book.getTitle() : attribute == 2 ? book.getAuthor() : book.getGenre();
+                if (value.toLowerCase(Locale.ROOT).contains(lowerTerm)) {
+                    found.add(position);
+                }
+                continue;
+            }
+            int offset = catalogue.fieldOffset(position, field);
+            int length = catalogue.fieldLength(offset);
+            if (length > bytes.length) {
+                bytes = new byte[length];
+                folded = new byte[length];
+            }
+            catalogue.fieldBytes(offset, bytes, length);
+            if (Utf8Search.containsIgnoreCase(bytes, 0, length, term, lowerTerm, folded)) {
+                found.add(position);
+            }
+        }
+        for (int position : added.findContaining(attribute, lowerTerm)) {
+            found.add(catalogue.size() + position);
+        }
+        return found.toArray();
+    }
+
+    @Override
+    public List<Book> toList() {
+        List<Book> books = new ArrayList<>(size());
+        for (int position = 0; position < size(); position++) {
+            books.add(get(position));
+        }
+        return books;
+    }
+}
@@ -0,0 +1,339 @@
+package library;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+//Класс MappedCatalogue - каталог книг в файле (расширение .cat), который не разбирается при открытии, а отображается в память
+//(FileChannel.map): книги читаются прямо из отображенных байтов по таблицам фиксированной ширины, поэтому открытие каталога
+//занимает одинаковое время при любом количестве книг, а сами книги не занимают места в куче
+//Формат (целые числа - 4 байта, big-endian):
+//  заголовок: сигнатура "LIBC", версия, количество книг n, наибольший id
+//  таблица записей: n смещений записей от начала файла (по позициям книг)
+//  таблица id: n пар (id, позиция), отсортированных по id (поиск книги по id двоичным поиском)
+//  таблица годов: n пар (год, позиция), отсортированных по году и позиции (поиск по году и диапазону лет)
+//  записи: id, год, затем название, автор и жанр - длина и байты UTF-8
+//Файл отображается одним буфером, поэтому его размер ограничен 2 ГБ (порядка 40 млн книг)
+//Смещения и длины записей проверяются при чтении каждой записи (а не перебором всего файла при открытии): запись испорченного
+//или обрезанного файла, выходящая за его пределы, дает UncheckedIOException с сообщением о неверном формате
+class MappedCatalogue {
+    static final String EXTENSION = ".cat";
+    private static final int MAGIC = 0x4C494243; //"LIBC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int BUFFER_SIZE = 1 << 20;
+    //Номера полей-строк записи (для fieldOffset)
+    static final int TITLE = 0;
+    static final int AUTHOR = 1;
+    static final int GENRE = 2;
+
+    private final MappedByteBuffer buffer; //Только абсолютные операции чтения, поэтому буфер можно читать из нескольких потоков
+    private final int count;
+    private final int maxId;
+    private final int idTable;      //Смещение таблицы id
+    private final int yearTable;    //Смещение таблицы годов
+    private final int recordsStart; //Смещение первой записи (записи идут сразу за таблицами)
+    private final int size;         //Размер файла
+
+    private MappedCatalogue(MappedByteBuffer buffer, int count, int maxId) {
+        this.buffer = buffer;
+        this.count = count;
+        this.maxId = maxId;
+        this.idTable = HEADER_SIZE + 4 * count;
+        this.yearTable = idTable + 8 * count;
+        this.recordsStart = yearTable + 8 * count;
+        this.size = buffer.capacity();
+    }
+
+    //Метод isCatalogueFile определяет по расширению, что файл должен быть в формате отображаемого каталога
+    static boolean isCatalogueFile(String filename) {
+        return filename.toLowerCase(Locale.ROOT).endsWith(EXTENSION);
+    }
+
+    //Метод write сохраняет список книг в файл каталога
+    //Файл пишется во временный и затем атомарно заменяет старый: старый файл может быть отображен в память открытым каталогом
+    static void write(Path path, List<Book> books) throws IOException {
+        CatalogueWriter.replaceAtomically(path, temp -> writeTo(temp, books));
+    }
+
+    private static void writeTo(Path temp, List<Book> books) throws IOException {
+        int count = books.size();
+        long recordsStart = HEADER_SIZE + 20L * count;
+        int[] offsets = new int[count];
+        long[] ids = new long[count];
+        long[] years = new long[count];
+        int maxId = 0;
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            //Сначала записи (их смещения становятся известны по ходу записи), затем заголовок и таблицы перед ними
+            Output out = new Output(channel, recordsStart);
+            for (int position = 0; position < count; position++) {
+                Book book = books.get(position);
+                if (out.position() > Integer.MAX_VALUE) {
+                    throw new IOException("Каталог слишком большой для отображаемого файла (больше 2 ГБ)");
+                }
+                offsets[position] = (int) out.position();
+                //Пары (значение, позиция) упаковываются в long, чтобы отсортировать их без создания объектов
+                ids[position] = ((long) book.getId() << 32) | position;
+                years[position] = ((long) book.getYear() << 32) | position;
+                maxId = Math.max(maxId, book.getId());
+                out.putInt(book.getId());
+                out.putInt(book.getYear());
+                out.putString(book.getTitle());
+                out.putString(book.getAuthor());
+                out.putString(book.getGenre());
+            }
+            out.flush();
+            if (out.position() > Integer.MAX_VALUE) {
+                throw new IOException("Каталог слишком большой для отображаемого файла (больше 2 ГБ)");
+            }
+            Arrays.sort(ids);
+            Arrays.sort(years);
+
+            out = new Output(channel, 0);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(count);
+            out.putInt(maxId);
+            for (int offset : offsets) {
+                out.putInt(offset);
+            }
+            for (long pair : ids) {
+                out.putInt((int) (pair >> 32));
+                out.putInt((int) pair);
+            }
+            for (long pair : years) {
+                out.putInt((int) (pair >> 32));
+                out.putInt((int) pair);
+            }
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    //Метод open отображает файл каталога в память и проверяет только заголовок: время открытия не зависит от количества книг,
+    //а смещения и длины записей проверяются при их чтении
+    static MappedCatalogue open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Файл каталога больше 2 ГБ");
+            }
+            if (size < HEADER_SIZE) {
+                throw new IOException("Неверный формат файла: файл слишком короткий");
+            }
+            //Отображение остается действительным и после закрытия канала
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Неверный формат файла: это не файл каталога библиотеки");
+            }
+            int version = buffer.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Неподдерживаемая версия файла каталога: " + version);
+            }
+            int count = buffer.getInt(8);
+            if (count < 0 || HEADER_SIZE + 20L * count > size) {
+                throw new IOException("Неверный формат файла: неверное количество записей");
+            }
+            return new MappedCatalogue(buffer, count, buffer.getInt(12));
+        }
+    }
+
+    //Метод read читает все записи каталога и передает их обработчику (загрузка файла .cat в обычную библиотеку)
+    static void read(Path path, CatalogueReader.RecordHandler handler) throws IOException {
+        MappedCatalogue catalogue = open(path);
+        try {
+            for (int position = 0; position < catalogue.size(); position++) {
+                handler.record(catalogue.id(position), catalogue.string(catalogue.fieldOffset(position, TITLE)),
+                        catalogue.string(catalogue.fieldOffset(position, AUTHOR)), catalogue.year(position),
+                        catalogue.string(catalogue.fieldOffset(position, GENRE)));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int maxId() {
+        return maxId;
+    }
+
+    public int id(int position) {
+        return buffer.getInt(recordOffset(position));
+    }
+
+    public int year(int position) {
+        return buffer.getInt(recordOffset(position) + 4);
+    }
+
+    //Метод get создает объект книги из записи на позиции
+    public Book get(int position) {
+        int offset = recordOffset(position);
+        int authorOffset = offset + 12 + fieldLength(offset + 8);
+        int genreOffset = authorOffset + 4 + fieldLength(authorOffset);
+        return new Book(buffer.getInt(offset), string(offset + 8), string(authorOffset), buffer.getInt(offset + 4),
+                string(genreOffset));
+    }
+
+    //Метод fieldOffset возвращает смещение поля-строки записи (TITLE, AUTHOR или GENRE): там лежит длина, за ней байты UTF-8
+    int fieldOffset(int position, int field) {
+        int offset = recordOffset(position) + 8;
+        for (int i = 0; i < field; i++) {
+            offset += 4 + fieldLength(offset);
+        }
+        return offset;
+    }
+
+    //Метод fieldLength возвращает длину поля-строки в байтах, fieldBytes копирует ее байты в dst
+    //Длина проверяется: поле должно целиком лежать в файле (после проверки смещение следующего поля не переполняется)
+    int fieldLength(int fieldOffset) {
+        if (fieldOffset > size - 4) {
+            throw formatError("поле записи выходит за пределы файла (файл обрезан или испорчен)");
+        }
+        int length = buffer.getInt(fieldOffset);
+        if (length < 0 || length > size - 4 - fieldOffset) {
+            throw formatError("неверная длина поля записи по смещению " + fieldOffset + " (файл обрезан или испорчен)");
+        }
+        return length;
+    }
+
+    void fieldBytes(int fieldOffset, byte[] dst, int length) {
+        buffer.get(fieldOffset + 4, dst, 0, length);
+    }
+
+    private String string(int fieldOffset) {
+        byte[] bytes = new byte[fieldLength(fieldOffset)];
+        buffer.get(fieldOffset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //Метод recordOffset возвращает смещение записи: за таблицами и так, чтобы в файле поместились id, год и длины трех строк
+    private int recordOffset(int position) {
+        int offset = buffer.getInt(HEADER_SIZE + 4 * position);
+        if (offset < recordsStart || offset > size - 20) {
+            throw formatError("неверное смещение записи " + position + " (файл обрезан или испорчен)");
+        }
+        return offset;
+    }
+
+    //Метод tablePosition возвращает позицию книги из пары таблицы id или годов, проверяя, что такая позиция есть
+    private int tablePosition(int pairOffset) {
+        int position = buffer.getInt(pairOffset + 4);
+        if (position < 0 || position >= count) {
+            throw formatError("испорчена таблица id или годов");
+        }
+        return position;
+    }
+
+    private static UncheckedIOException formatError(String message) {
+        return new UncheckedIOException(new IOException("Неверный формат файла каталога: " + message));
+    }
+
+    //Метод positionOf ищет позицию книги с указанным id в таблице id (-1, если такой книги нет)
+    public int positionOf(int id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = buffer.getInt(idTable + 8 * middle);
+            if (value < id) {
+                low = middle + 1;
+            } else if (value > id) {
+                high = middle - 1;
+            } else {
+                return tablePosition(idTable + 8 * middle);
+            }
+        }
+        return -1;
+    }
+
+    //Метод yearRange возвращает позиции книг с годом от from до to включительно, упорядоченные по году
+    public int[] yearRange(int from, int to) {
+        int start = lowerBound(from);
+        int end = to == Integer.MAX_VALUE ? count : lowerBound(to + 1);
+        int[] positions = new int[Math.max(0, end - start)];
+        for (int i = start; i < end; i++) {
+            positions[i - start] = tablePosition(yearTable + 8 * i);
+        }
+        return positions;
+    }
+
+    //Метод yearCount возвращает количество книг с годом от from до to включительно двумя двоичными поисками
+    public int yearCount(int from, int to) {
+        int end = to == Integer.MAX_VALUE ? count : lowerBound(to + 1);
+        return Math.max(0, end - lowerBound(from));
+    }
+
+    //Метод lowerBound возвращает номер первой пары таблицы годов с годом не меньше year
+    private int lowerBound(int year) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (buffer.getInt(yearTable + 8 * middle) < year) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    //Класс Output буферизует запись в канал начиная с заданной позиции файла
+    private static class Output {
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final FileChannel channel;
+        private long filePosition; //Позиция файла, с которой будет записано начало буфера
+
+        Output(FileChannel channel, long start) {
+            this.channel = channel;
+            this.filePosition = start;
+        }
+
+        //Метод position возвращает позицию файла, на которую попадет следующий записанный байт
+        long position() {
+            return filePosition + buffer.position();
+        }
+
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < 4) {
+                flush();
+            }
+            buffer.putInt(value);
+        }
+
+        void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                filePosition += channel.write(buffer, filePosition);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+//Класс NGramIndex - инвертированный индекс по триграммам для поиска подстроки в одном атрибуте книг (название, автор или жанр)
+//Для каждой триграммы хранится отсортированный список позиций книг, в значении атрибута которых она встречается
+class NGramIndex {
+    private static final int N = 3; //Длина n-граммы
+
+    //Триграмма (три символа, упакованные в long) -> отсортированный список позиций книг
+    private final Map<Long, IntList> postings;
+    //Значения атрибута в нижнем регистре по позициям книг (чтобы не вызывать toLowerCase() при каждом запросе)
+    private final List<String> values;
+
+    public NGramIndex() {
+        postings = new HashMap<>();
+        values = new ArrayList<>();
+    }
+
+    //Метод add добавляет в индекс значение атрибута книги, стоящей на указанной позиции
+    public void add(int position, String value) {
+        String lower = value.toLowerCase(Locale.ROOT);
+        while (values.size() <= position) {
+            values.add(null);
+        }
+        values.set(position, lower);
+        addPostings(position, lower);
+    }
+
+    //Метод update заменяет значение атрибута книги при редактировании
+    public void update(int position, String value) {
+        String oldLower = values.get(position);
+        String lower = value.toLowerCase(Locale.ROOT);
+        if (oldLower.equals(lower)) {
+            return;
+        }
+        for (int i = 0; i + N <= oldLower.length(); i++) {
+            IntList list = postings.get(gram(oldLower, i));
+            if (list != null) {
+                list.removeSorted(position);
+                if (list.isEmpty()) {
+                    postings.remove(gram(oldLower, i));
+                }
+            }
+        }
+        values.set(position, lower);
+        addPostings(position, lower);
+    }
+
+    private void addPostings(int position, String lower) {
+        for (int i = 0; i + N <= lower.length(); i++) {
+            IntList list = postings.computeIfAbsent(gram(lower, i), g -> new IntList());
+            //Позиции обычно приходят по возрастанию, тогда вставка - это просто добавление в конец
+            list.addSorted(position);
+        }
+    }
+
+    //Метод search возвращает позиции книг (по возрастанию), у которых значение атрибута содержит searchTerm без учета регистра
+    public int[] search(String searchTerm) {
+        String term = searchTerm.toLowerCase(Locale.ROOT);
+        IntList result = new IntList();
+
+        //Для коротких запросов триграмм нет - просматриваем закешированные значения в нижнем регистре
+        if (term.length() < N) {
+            for (int position = 0; position < values.size(); position++) {
+                String value = values.get(position);
+                if (value != null && value.contains(term)) {
+                    result.add(position);
+                }
+            }
+            return result.toArray();
+        }
+
+        //Собираем списки позиций для всех триграмм запроса; если какой-то триграммы нет - совпадений нет
+        IntList[] lists = new IntList[term.length() - N + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(gram(term, i));
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        //Пересекаем списки начиная с самого короткого, остальные проверяем двоичным поиском
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+        IntList smallest = lists[0];
+        for (int k = 0; k < smallest.size(); k++) {
+            int position = smallest.get(k);
+            boolean inAll = true;
+            for (int i = 1; i < lists.length && inAll; i++) {
+                inAll = lists[i].containsSorted(position);
+            }
+            //Наличие всех триграмм еще не гарантирует подстроку, поэтому кандидата проверяем окончательно
+            if (inAll && values.get(position).contains(term)) {
+                result.add(position);
+            }
+        }
+        return result.toArray();
+    }
+
+    //Метод estimate оценивает сверху количество книг, которые вернет search(searchTerm): это длина самого короткого списка
+    //среди триграмм запроса (0, если какой-то триграммы нет в индексе); для коротких запросов - количество всех значений
+    public int estimate(String searchTerm) {
+        String term = searchTerm.toLowerCase(Locale.ROOT);
+        if (term.length() < N) {
+            return values.size();
+        }
+        int smallest = Integer.MAX_VALUE;
+        for (int i = 0; i + N <= term.length(); i++) {
+            IntList list = postings.get(gram(term, i));
+            if (list == null) {
+                return 0;
+            }
+            smallest = Math.min(smallest, list.size());
+        }
+        return smallest;
+    }
+
+    //Метод memoryFootprint дает приблизительную оценку занимаемой индексом памяти в байтах (64-битная JVM со сжатыми ссылками)
+    public long memoryFootprint() {
+        long bytes = 0;
+        //Таблица HashMap и узлы с ключами Long и объектами IntList
+        bytes += 16L + 4L * Integer.highestOneBit(Math.max(1, postings.size() * 2));
+        for (IntList list : postings.values()) {
+            bytes += 32 + 16 + 24 + 16 + 4L * list.capacity();
+        }
+        //Список значений в нижнем регистре
+        bytes += 24 + 4L * values.size();
+        for (String value : values) {
+            if (value != null) {
+                bytes += 24 + 16 + 2L * value.length();
+            }
+        }
+        return bytes;
+    }
+
+    //Метод gram упаковывает три символа, начиная с позиции i, в одно число long
+    private static Long gram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+}
@@ -0,0 +1,110 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Класс SearchCache - кэш результатов поиска по названию, автору и жанру: ключ - номер атрибута и запрос в нижнем регистре,
+//значение - позиции найденных книг. Вытесняются давно не использованные записи (LRU), когда записей больше capacity
+//или в них в сумме больше MAX_POSITIONS позиций (широкие запросы занимают много памяти)
+//Позиции книг в библиотеке не меняются, поэтому запись устаревает, только если у какой-то книги появилось или исчезло
+//значение атрибута, содержащее запрос: библиотека сообщает о таких значениях через invalidate и удаляет только затронутые записи
+//Методы синхронизированы: поиск из нескольких потоков одновременно читает и пополняет кэш под блокировкой библиотеки на чтение
+class SearchCache {
+    private static final long MAX_POSITIONS = 4L << 20; //Не больше 4 млн позиций во всех записях (16 МБ)
+
+    private record Key(int attribute, String term) {
+    }
+
+    private final LinkedHashMap<Key, int[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int capacity;
+    private long positionCount; //Сумма позиций во всех записях
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public SearchCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    //Метод setCapacity задает наибольшее количество записей (0 - кэш выключен)
+    public synchronized void setCapacity(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        evictIfNeeded();
+    }
+
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    //Метод get возвращает позиции из кэша или null, если такого поиска в кэше нет
+    public synchronized int[] get(int attribute, String lowerTerm) {
+        if (capacity == 0) {
+            return null;
+        }
+        int[] positions = entries.get(new Key(attribute, lowerTerm));
+        if (positions == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return positions;
+    }
+
+    //Метод put сохраняет результат поиска (массив позиций не должен больше изменяться)
+    public synchronized void put(int attribute, String lowerTerm, int[] positions) {
+        if (capacity == 0 || positions.length > MAX_POSITIONS) {
+            return;
+        }
+        int[] old = entries.put(new Key(attribute, lowerTerm), positions);
+        positionCount += positions.length - (old == null ? 0 : old.length);
+        evictIfNeeded();
+    }
+
+    //Метод invalidate удаляет записи поиска по атрибуту attribute, под которые подходит значение lowerValue
+    //(вызывается для значений, которые появились у книг или исчезли у них)
+    public synchronized void invalidate(int attribute, String lowerValue) {
+        Iterator<Map.Entry<Key, int[]>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, int[]> entry = iterator.next();
+            if (entry.getKey().attribute() == attribute && lowerValue.contains(entry.getKey().term())) {
+                positionCount -= entry.getValue().length;
+                iterator.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    //Метод clear удаляет все записи (при массовых изменениях библиотеки, например при загрузке файла)
+    public synchronized void clear() {
+        invalidations += entries.size();
+        entries.clear();
+        positionCount = 0;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<int[]> eldest = entries.values().iterator();
+        while (eldest.hasNext() && (entries.size() > capacity || positionCount > MAX_POSITIONS)) {
+            positionCount -= eldest.next().length;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    //Метод report возвращает строки отчета о работе кэша для команды stats
+    public synchronized List<String> report() {
+        List<String> lines = new ArrayList<>();
+        if (capacity == 0) {
+            lines.add("Кэш поиска выключен");
+            return lines;
+        }
+        long requests = hits + misses;
+        lines.add("Кэш поиска: записей " + entries.size() + " из " + capacity + ", попаданий " + hits + ", промахов " + misses
+                + (requests > 0 ? " (" + hits * 100 / requests + "% попаданий)" : "") + ", вытеснено " + evictions
+                + ", удалено при изменениях " + invalidations);
+        return lines;
+    }
+}
@@ -0,0 +1,50 @@
+package library;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+//Класс SearchResult - результат поиска или просмотра библиотеки: хранятся только позиции найденных книг и их количество,
+//а сами книги выдаются страницами (page) или ленивым потоком (stream) - вызывающий код платит только за прочитанные книги
+//Позиции книг в библиотеке не меняются (книги только добавляются, при редактировании книга заменяется на той же позиции),
+//поэтому страницы можно читать и после поиска - в них будут актуальные версии книг
+class SearchResult {
+    //Размер страницы, которой поток stream() забирает книги из библиотеки
+    private static final int STREAM_PAGE_SIZE = 1024;
+
+    private final LibraryManager library;
+    //Позиции найденных книг (null - все книги библиотеки с позиции 0 до count на момент запроса)
+    private final int[] positions;
+    private final int count;
+
+    SearchResult(LibraryManager library, int[] positions, int count) {
+        this.library = library;
+        this.positions = positions;
+        this.count = count;
+    }
+
+    //Метод count возвращает количество найденных книг
+    public int count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    //Метод page возвращает книги с номерами от offset до offset + limit (не включительно) в порядке результата
+    public List<Book> page(int offset, int limit) {
+        int from = Math.max(0, Math.min(offset, count));
+        int to = (int) Math.min(count, (long) from + Math.max(0, limit));
+        return library.booksAt(positions, from, to);
+    }
+
+    //Метод stream возвращает ленивый поток найденных книг: книги забираются из библиотеки страницами по мере чтения потока,
+    //поэтому, например, stream().limit(10) не обращается к остальным книгам
+    public Stream<Book> stream() {
+        int pages = (count + STREAM_PAGE_SIZE - 1) / STREAM_PAGE_SIZE;
+        return IntStream.range(0, pages)
+                .mapToObj(page -> page(page * STREAM_PAGE_SIZE, STREAM_PAGE_SIZE))
+                .flatMap(List::stream);
+    }
+}
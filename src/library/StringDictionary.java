@@ -0,0 +1,68 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+//Класс StringDictionary - словарь строк: каждое различное значение хранится один раз и получает числовой код (0, 1, 2, ...)
+//Используется для атрибутов с небольшим количеством различных значений (автор, жанр): все книги ссылаются на один экземпляр
+//строки из словаря, а значение в нижнем регистре вычисляется один раз для записи словаря, а не для каждой книги
+//Значения из словаря не удаляются (даже если книг с ними больше нет), словарь не потокобезопасен
+class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private final List<String> lowerValues = new ArrayList<>(); //Значения в нижнем регистре (по кодам)
+
+    //Метод encode возвращает код значения, добавляя значение в словарь, если его там еще нет
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            values.add(value);
+            lowerValues.add(toLowerCase(value));
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    //Метод canonical возвращает экземпляр строки из словаря, равный value (добавляет значение в словарь, если его там нет)
+    public String canonical(String value) {
+        return values.get(encode(value));
+    }
+
+    //Метод code возвращает код значения или -1, если значения нет в словаре (словарь при этом не меняется)
+    public int code(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    //Метод decode возвращает значение по коду
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    //Метод lowerCase возвращает закешированное значение в нижнем регистре по коду
+    public String lowerCase(int code) {
+        return lowerValues.get(code);
+    }
+
+    //Метод lowerCaseOf возвращает значение в нижнем регистре: из словаря, если значение там есть, иначе вычисляет его
+    public String lowerCaseOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? toLowerCase(value) : lowerValues.get(code);
+    }
+
+    //Метод toLowerCase приводит строку к нижнему регистру так же, как для значений словаря
+    //(им же пользуются ключи дубликатов, которые вычисляются без словаря, например в потоках параллельной загрузки)
+    //Регистр меняется по Locale.ROOT: иначе ключи и поиск зависели бы от языка системы (в турецком "I" - это "ı", а не "i")
+    static String toLowerCase(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    //Метод size возвращает количество различных значений в словаре
+    public int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,65 @@
+package library;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+//Класс Utf8Search - поиск подстроки без учета регистра прямо в байтах UTF-8, без создания объектов String
+//Используется хранилищами, которые держат строки книг в виде байтов (колоночное хранилище, отображенный каталог)
+final class Utf8Search {
+    private Utf8Search() {
+    }
+
+    //Метод containsIgnoreCase проверяет, содержат ли байты data[offset..offset+length) подстроку lowerTerm без учета регистра
+    //Значение переводится в нижний регистр в буфер folded (длиной не меньше length): для латиницы и кириллицы длина в байтах
+    //при этом не меняется, и в нем ищутся байты запроса term. Значения с другими символами проверяются через String
+    static boolean containsIgnoreCase(byte[] data, int offset, int length, byte[] term, String lowerTerm, byte[] folded) {
+        for (int i = 0; i < length; i++) {
+            int b = data[offset + i] & 0xFF;
+            if (b < 0x80) {
+                folded[i] = (byte) (b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b);
+            } else if ((b == 0xD0 || b == 0xD1) && i + 1 < length) {
+                //Двухбайтовые символы U+0400..U+047F: заглавные буквы кириллицы переводим в строчные
+                int c = ((b & 0x1F) << 6) | (data[offset + i + 1] & 0x3F);
+                if (c >= 0x0410 && c <= 0x042F) {
+                    c += 0x20; //А..Я -> а..я
+                } else if (c <= 0x040F) {
+                    c += 0x50; //Ѐ..Џ (в том числе Ё) -> ѐ..џ
+                } else if (c >= 0x0460) {
+                    return decodeContains(data, offset, length, lowerTerm);
+                }
+                folded[i] = (byte) (0xC0 | (c >> 6));
+                folded[i + 1] = (byte) (0x80 | (c & 0x3F));
+                i++;
+            } else {
+                return decodeContains(data, offset, length, lowerTerm);
+            }
+        }
+        //Поиск подстроки в байтах (в UTF-8 совпадение байтов равносильно совпадению символов)
+        return indexOf(folded, length, term) >= 0;
+    }
+
+    private static boolean decodeContains(byte[] data, int offset, int length, String lowerTerm) {
+        return new String(data, offset, length, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT).contains(lowerTerm);
+    }
+
+    private static int indexOf(byte[] data, int length, byte[] term) {
+        if (term.length == 0) {
+            return 0;
+        }
+        byte first = term[0];
+        int last = length - term.length;
+        for (int start = 0; start <= last; start++) {
+            if (data[start] != first) {
+                continue;
+            }
+            int i = 1;
+            while (i < term.length && data[start + i] == term[i]) {
+                i++;
+            }
+            if (i == term.length) {
+                return start;
+            }
+        }
+        return -1;
+    }
+}
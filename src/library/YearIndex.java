@@ -0,0 +1,89 @@
+package library;
+
+import java.util.Arrays;
+
+//Класс YearIndex - отсортированный индекс по году издания: для каждого различного года хранится список позиций книг
+//Поиск года или диапазона лет выполняется двоичным поиском за O(log n + k) без создания строк
+class YearIndex {
+    private int[] years;        //Различные года по возрастанию
+    private IntList[] postings; //Позиции книг для каждого года (postings[i] соответствует years[i])
+    private int size;           //Количество различных годов
+
+    public YearIndex() {
+        years = new int[16];
+        postings = new IntList[16];
+    }
+
+    //Метод add добавляет книгу с указанной позицией в индекс
+    public void add(int position, int year) {
+        int index = Arrays.binarySearch(years, 0, size, year);
+        if (index < 0) {
+            //Новый год встречается редко, поэтому сдвиг массивов здесь не критичен
+            index = -index - 1;
+            if (size == years.length) {
+                years = Arrays.copyOf(years, size * 2);
+                postings = Arrays.copyOf(postings, size * 2);
+            }
+            System.arraycopy(years, index, years, index + 1, size - index);
+            System.arraycopy(postings, index, postings, index + 1, size - index);
+            years[index] = year;
+            postings[index] = new IntList();
+            size++;
+        }
+        postings[index].addSorted(position);
+    }
+
+    //Метод update переносит книгу из списка старого года в список нового при редактировании
+    public void update(int position, int oldYear, int newYear) {
+        if (oldYear == newYear) {
+            return;
+        }
+        int index = Arrays.binarySearch(years, 0, size, oldYear);
+        if (index >= 0) {
+            postings[index].removeSorted(position);
+            if (postings[index].isEmpty()) {
+                System.arraycopy(years, index + 1, years, index, size - index - 1);
+                System.arraycopy(postings, index + 1, postings, index, size - index - 1);
+                size--;
+                postings[size] = null;
+            }
+        }
+        add(position, newYear);
+    }
+
+    //Метод count возвращает количество книг с годом издания от from до to включительно, не собирая их позиции
+    public int count(int from, int to) {
+        int count = 0;
+        if (from > to) {
+            return count;
+        }
+        int index = Arrays.binarySearch(years, 0, size, from);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        for (; index < size && years[index] <= to; index++) {
+            count += postings[index].size();
+        }
+        return count;
+    }
+
+    //Метод range возвращает позиции книг с годом издания от from до to включительно (упорядочены по году)
+    public int[] range(int from, int to) {
+        IntList result = new IntList();
+        if (from > to) {
+            return result.toArray();
+        }
+        //Ищем первый год, не меньший from
+        int index = Arrays.binarySearch(years, 0, size, from);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        for (; index < size && years[index] <= to; index++) {
+            IntList list = postings[index];
+            for (int i = 0; i < list.size(); i++) {
+                result.add(list.get(i));
+            }
+        }
+        return result.toArray();
+    }
+}
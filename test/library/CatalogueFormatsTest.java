@@ -0,0 +1,134 @@
+package library;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+//Тест форматов сохранения: библиотека, сохраненная в текстовый (.txt), двоичный (.bin) и каталожный (.cat) файл,
+//загружается обратно без изменений - в том числе названия с разделителем ';', обратной косой чертой и символами вне BMP
+class CatalogueFormatsTest {
+    private static final String[][] BOOKS = {
+            {"Война и мир", "Лев Толстой", "1869", "Роман"},
+            {"Преступление; и наказание", "Федор Достоевский", "1866", "Роман"},
+            {";;", "Автор; с точкой с запятой", "2000", "Жанр;"},
+            {"Путь C:\\книги\\", "Автор \\ ; \\;", "1999", "Справочник"},
+            {"Математика 𝔊𝔞𝔩𝔬𝔦𝔰 📚", "Эварист Галуа 🎓", "1832", "Наука 🔬"},
+            {"漢字と かな", "紫式部", "1008", "Моногатари"},
+            {"Отрицательный год", "Гомер", "-750", "Эпос"},
+    };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void textRoundTrip() {
+        assertRoundTrip("library.txt");
+    }
+
+    @Test
+    void binaryRoundTrip() {
+        assertRoundTrip("library.bin");
+    }
+
+    @Test
+    void catalogueRoundTrip() {
+        assertRoundTrip("library.cat");
+    }
+
+    //Каталог .cat можно и не загружать, а открыть отображением в память - книги должны быть те же
+    @Test
+    void mappedCatalogueMatches() {
+        LibraryManager library = sample();
+        String file = directory.resolve("mapped.cat").toString();
+        library.saveToFile(file);
+
+        LibraryManager mapped = newLibrary(new ByteArrayOutputStream());
+        mapped.openMapped(file);
+        assertEquals(texts(library), texts(mapped));
+    }
+
+    //Двоичный файл с испорченной записью не загружается (контрольная сумма не совпадает), книги из него не добавляются
+    @Test
+    void binaryWithCorruptedChecksumIsRejected() throws IOException {
+        Path file = directory.resolve("corrupted.bin");
+        sample().saveToFile(file.toString());
+        byte[] data = Files.readAllBytes(file);
+        data[data.length / 2] ^= 0x20;
+        Files.write(file, data);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        LibraryManager loaded = newLibrary(output);
+        loaded.loadFromFile(file.toString());
+        assertEquals(0, loaded.allBooks().count());
+        String messages = output.toString(StandardCharsets.UTF_8);
+        assertTrue(messages.contains("контрольная сумма не совпадает"), messages);
+    }
+
+    //Каталог .cat с испорченной длиной поля в середине файла открывается (проверяется только заголовок),
+    //но чтение этой записи дает ошибку формата, а загрузка такого каталога в обычную библиотеку останавливается на ней
+    //с сообщением об ошибке (как и для других файлов, книги до ошибки остаются в библиотеке)
+    @Test
+    void catalogueWithCorruptedLengthIsRejected() throws IOException {
+        Path file = directory.resolve("corrupted.cat");
+        sample().saveToFile(file.toString());
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        int middle = BOOKS.length / 2;
+        int offset = data.getInt(16 + 4 * middle); //Смещение записи из таблицы смещений за 16-байтным заголовком
+        data.putInt(offset + 8, Integer.MAX_VALUE - 2); //Длина названия
+        Files.write(file, data.array());
+
+        LibraryManager mapped = newLibrary(new ByteArrayOutputStream());
+        mapped.openMapped(file.toString());
+        UncheckedIOException error = assertThrows(UncheckedIOException.class, () -> texts(mapped));
+        assertTrue(error.getCause().getMessage().contains("Неверный формат файла каталога"), error.getCause().getMessage());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        LibraryManager loaded = newLibrary(output);
+        loaded.loadFromFile(file.toString());
+        assertEquals(texts(sample()).subList(0, middle), texts(loaded));
+        String messages = output.toString(StandardCharsets.UTF_8);
+        assertTrue(messages.contains("Неверный формат файла каталога"), messages);
+    }
+
+    private void assertRoundTrip(String name) {
+        LibraryManager library = sample();
+        String file = directory.resolve(name).toString();
+        library.saveToFile(file);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        LibraryManager loaded = newLibrary(output);
+        loaded.loadFromFile(file);
+        assertEquals(texts(library), texts(loaded), output.toString(StandardCharsets.UTF_8));
+    }
+
+    private static LibraryManager sample() {
+        LibraryManager library = newLibrary(new ByteArrayOutputStream());
+        for (String[] book : BOOKS) {
+            library.addBook(book[0], book[1], Integer.parseInt(book[2]), book[3]);
+        }
+        return library;
+    }
+
+    private static LibraryManager newLibrary(ByteArrayOutputStream output) {
+        LibraryManager library = new LibraryManager();
+        library.setOutput(new PrintStream(output, true, StandardCharsets.UTF_8));
+        return library;
+    }
+
+    private static List<String> texts(LibraryManager library) {
+        return library.allBooks().stream().map(Book::toString).collect(Collectors.toList());
+    }
+}
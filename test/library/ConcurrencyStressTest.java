@@ -0,0 +1,322 @@
+package library;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+//Стресс-тест LibraryManager под смешанной нагрузкой из нескольких потоков (95% чтений, 5% изменений: добавления и
+//редактирования пополам). Проверяется правильность блокировок, а не скорость:
+//  - id, выданные addBook, не повторяются, и каждый сразу и в конце находится через findById;
+//  - читатели (findById, поиск, страницы всех книг, диапазон лет) не видят наполовину примененного editBook: редактирование
+//    всегда меняет название, автора и год согласованно ("Пара k", "Автор пары k", год по k), поэтому книга с названием
+//    одной пары и автором другой (или без пары) означает, что читатель увидел книгу посреди изменения;
+//  - книга, уже выданная читателю, не меняется на месте;
+//  - итоговое количество книг равно исходному плюс количество добавлений.
+//Проверка выполняется для хранилища-списка, колоночного хранилища и библиотеки с журналом; для журнала библиотека
+//дополнительно восстанавливается из файлов и сравнивается с исходной книга за книгой
+//По умолчанию каждый режим нагружается 1 секунду, чтобы тест укладывался в обычную сборку; для долгой проверки на
+//многоядерной машине: mvn -pl app test -Dtest=ConcurrencyStressTest -Dstress.seconds=30 -Dstress.threads=16 -Dstress.books=100000
+class ConcurrencyStressTest {
+    private static final String PAIR_TITLE = "Пара ";
+    private static final String PAIR_AUTHOR = "Автор пары ";
+    private static final String[] GENRES = {"Роман", "Поэма", "Притча", "Фэнтези", "Антиутопия"};
+    private static final int FIRST_YEAR = 1800;
+    private static final int YEARS = 225;
+    private static final int MAX_ERRORS = 20;
+
+    private static final int SECONDS = Integer.getInteger("stress.seconds", 1);
+    private static final int THREADS = Integer.getInteger("stress.threads", 4);
+    private static final int BOOKS = Integer.getInteger("stress.books", 20_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void listStorage() throws IOException {
+        LibraryManager library = load(false);
+        new Stress(library).run();
+    }
+
+    @Test
+    void columnarStorage() throws IOException {
+        LibraryManager library = load(true);
+        new Stress(library).run();
+    }
+
+    //Библиотека с журналом после нагрузки восстанавливается из файлов: книги должны совпасть с книгами библиотеки
+    @Test
+    void journal() throws IOException {
+        String base = directory.resolve("library").toString();
+        LibraryManager journaled = newLibrary();
+        journaled.openJournal(base);
+        journaled.loadFromFile(catalogue().toString());
+        new Stress(journaled).run();
+        List<String> expected = texts(journaled);
+        journaled.closeJournal();
+
+        LibraryManager restored = newLibrary();
+        restored.openJournal(base);
+        List<String> actual = texts(restored);
+        restored.closeJournal();
+        assertEquals(expected, actual, "книги, восстановленные из журнала, не совпадают с библиотекой");
+    }
+
+    private LibraryManager load(boolean columnar) throws IOException {
+        LibraryManager library = newLibrary();
+        library.setColumnarStorage(columnar);
+        library.loadFromFile(catalogue().toString());
+        return library;
+    }
+
+    private static LibraryManager newLibrary() {
+        LibraryManager library = new LibraryManager();
+        library.setOutput(new PrintStream(OutputStream.nullOutputStream()));
+        library.setSearchCacheCapacity(256);
+        return library;
+    }
+
+    //Метод catalogue записывает текстовый каталог из BOOKS книг с годами от FIRST_YEAR
+    private Path catalogue() throws IOException {
+        Path file = directory.resolve("catalogue.txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int id = 1; id <= BOOKS; id++) {
+                writer.append(String.valueOf(id)).append(";Книга ").append(String.valueOf(id))
+                        .append(";Автор ").append(String.valueOf(id % 500))
+                        .append(';').append(String.valueOf(FIRST_YEAR + id % YEARS))
+                        .append(';').append(GENRES[id % GENRES.length]).append('\n');
+            }
+        }
+        return file;
+    }
+
+    private static List<String> texts(LibraryManager library) {
+        return library.allBooks().stream().map(Book::toString).collect(Collectors.toList());
+    }
+
+    private static int yearOf(int pair) {
+        return FIRST_YEAR + pair % YEARS;
+    }
+
+    //Класс Stress - один прогон нагрузки на библиотеку и проверка итогового состояния
+    private static class Stress {
+        private final LibraryManager library;
+        private final int initialCount;
+        private final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+        private final Set<Integer> addedIds = ConcurrentHashMap.newKeySet();
+        //Выданные id в порядке добавления, чтобы читатели могли выбирать их случайно (0 - ячейка еще не заполнена)
+        private final AtomicIntegerArray publishedIds = new AtomicIntegerArray(1 << 20);
+        private final AtomicInteger publishedCount = new AtomicInteger();
+        private final AtomicInteger nextPair = new AtomicInteger();
+        private final LongAdder adds = new LongAdder();
+        private volatile boolean running = true;
+
+        Stress(LibraryManager library) {
+            this.library = library;
+            this.initialCount = library.allBooks().count();
+        }
+
+        //Метод run нагружает библиотеку SECONDS секунд, затем проверяет итоговое состояние; ошибки приводят к провалу теста
+        void run() {
+            List<Thread> workers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Thread worker = new Thread(this::work, "stress-" + i);
+                workers.add(worker);
+                worker.start();
+            }
+            try {
+                Thread.sleep(SECONDS * 1000L);
+                running = false;
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            checkFinalState();
+            assertTrue(errors.isEmpty(), () -> "нарушения при нагрузке:\n  "
+                    + errors.stream().limit(MAX_ERRORS).collect(Collectors.joining("\n  ")));
+        }
+
+        //Каждый поток держит книги, полученные при предыдущем чтении, и после следующей операции проверяет, что они не изменились:
+        //редактирование должно заменять книгу новым объектом, а не менять уже выданный читателю
+        private void work() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            List<Book> held = new ArrayList<>();
+            List<String> heldText = new ArrayList<>();
+            try {
+                while (running) {
+                    int choice = random.nextInt(100);
+                    if (choice < 95) {
+                        List<Book> seen = read(random);
+                        for (int i = 0; i < held.size(); i++) {
+                            if (!held.get(i).toString().equals(heldText.get(i))) {
+                                fail("выданная читателю книга изменилась на месте: было " + heldText.get(i) + ", стало " + held.get(i));
+                            }
+                        }
+                        held.clear();
+                        heldText.clear();
+                        for (Book book : seen.subList(0, Math.min(seen.size(), 20))) {
+                            held.add(book);
+                            heldText.add(book.toString());
+                        }
+                    } else if (random.nextBoolean()) {
+                        add();
+                    } else {
+                        edit(random);
+                    }
+                }
+            } catch (RuntimeException e) {
+                fail("исключение в потоке " + Thread.currentThread().getName() + ": " + e);
+            }
+        }
+
+        //Метод read выполняет случайное чтение, проверяет полученные книги и возвращает их
+        private List<Book> read(ThreadLocalRandom random) {
+            String source;
+            List<Book> seen;
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    int id = randomId(random);
+                    Book book = library.findById(id);
+                    if (book == null) {
+                        fail("findById(" + id + ") не нашел существующую книгу");
+                        return List.of();
+                    }
+                    if (book.getId() != id) {
+                        fail("findById(" + id + ") вернул книгу " + book);
+                    }
+                    source = "findById";
+                    seen = List.of(book);
+                }
+                case 1 -> {
+                    //Поиск по автору пары: автор есть только у отредактированных книг, результат проходит через кэш поиска
+                    String term = PAIR_AUTHOR + random.nextInt(Math.max(1, nextPair.get()));
+                    source = "поиск";
+                    seen = library.search(2, term).page(0, 20);
+                }
+                case 2 -> {
+                    SearchResult all = library.allBooks();
+                    source = "allBooks";
+                    seen = all.page(random.nextInt(Math.max(1, all.count())), 20);
+                }
+                default -> {
+                    int from = FIRST_YEAR + random.nextInt(YEARS);
+                    source = "findByYearRange";
+                    seen = library.findByYearRange(from, from);
+                }
+            }
+            for (Book book : seen) {
+                checkConsistent(book, source);
+            }
+            return seen;
+        }
+
+        private void add() {
+            int pair = nextPair.getAndIncrement();
+            Book book = library.addBook(PAIR_TITLE + pair, PAIR_AUTHOR + pair, yearOf(pair), "Стресс");
+            if (book == null) {
+                fail("addBook не добавил книгу");
+                return;
+            }
+            adds.increment();
+            if (!addedIds.add(book.getId())) {
+                fail("id " + book.getId() + " выдан повторно");
+            }
+            //Только что добавленная книга должна сразу находиться по id
+            if (library.findById(book.getId()) == null) {
+                fail("добавленная книга " + book + " не находится по id");
+            }
+            int slot = publishedCount.getAndIncrement();
+            if (slot < publishedIds.length()) {
+                publishedIds.set(slot, book.getId());
+            }
+        }
+
+        private void edit(ThreadLocalRandom random) {
+            int pair = nextPair.getAndIncrement();
+            library.editBook(randomId(random), PAIR_TITLE + pair, PAIR_AUTHOR + pair, yearOf(pair), null);
+        }
+
+        //Метод randomId выбирает id исходной книги или (в половине случаев, если есть) книги, добавленной во время проверки
+        private int randomId(ThreadLocalRandom random) {
+            int published = Math.min(publishedCount.get(), publishedIds.length());
+            if (published > 0 && random.nextBoolean()) {
+                int id = publishedIds.get(random.nextInt(published));
+                if (id != 0) {
+                    return id;
+                }
+            }
+            return 1 + random.nextInt(initialCount);
+        }
+
+        //Метод checkConsistent проверяет, что название, автор и год книги относятся к одной версии книги
+        private void checkConsistent(Book book, String source) {
+            boolean pairTitle = book.getTitle().startsWith(PAIR_TITLE);
+            boolean pairAuthor = book.getAuthor().startsWith(PAIR_AUTHOR);
+            if (pairTitle != pairAuthor) {
+                fail(source + ": книга наполовину изменена: " + book);
+                return;
+            }
+            if (pairTitle) {
+                String pair = book.getTitle().substring(PAIR_TITLE.length());
+                if (!book.getAuthor().substring(PAIR_AUTHOR.length()).equals(pair)
+                        || book.getYear() != yearOf(Integer.parseInt(pair))) {
+                    fail(source + ": название, автор и год из разных изменений: " + book);
+                }
+            }
+        }
+
+        //Метод checkFinalState проверяет состояние библиотеки после остановки всех потоков
+        private void checkFinalState() {
+            int expected = initialCount + adds.intValue();
+            int count = library.allBooks().count();
+            if (count != expected) {
+                fail("в библиотеке " + count + " книг, а должно быть " + expected + " (исходные " + initialCount
+                        + " и добавленные " + adds.intValue() + ")");
+            }
+            if (addedIds.size() != adds.intValue()) {
+                fail("различных выданных id " + addedIds.size() + ", а добавлений " + adds.intValue());
+            }
+            for (int id : addedIds) {
+                Book book = library.findById(id);
+                if (book == null || book.getId() != id) {
+                    fail("после нагрузки книга с выданным id " + id + " не находится");
+                }
+            }
+            Set<Integer> seenIds = new HashSet<>();
+            library.allBooks().stream().forEach(book -> {
+                if (!seenIds.add(book.getId())) {
+                    fail("в библиотеке две книги с id " + book.getId());
+                }
+                checkConsistent(book, "итоговое состояние");
+            });
+        }
+
+        private void fail(String message) {
+            if (errors.size() < MAX_ERRORS * 10) {
+                errors.add(message);
+            }
+        }
+    }
+}
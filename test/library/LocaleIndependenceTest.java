@@ -0,0 +1,50 @@
+package library;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+//Тест независимости от языка системы: в турецком языке "I" в нижнем регистре - "ı", поэтому при приведении к нижнему
+//регистру по языку системы книга "INDEX" не находилась бы по слову "index" и не считалась бы дубликатом книги "index"
+class LocaleIndependenceTest {
+    private Locale defaultLocale;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void useTurkishLocale() {
+        defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+    }
+
+    @AfterEach
+    void restoreLocale() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    void searchAndDuplicatesIgnoreDefaultLocale() throws IOException {
+        Path file = directory.resolve("books.txt");
+        Files.writeString(file, "1;index;ivan ilyin;2000;Fiction\n", StandardCharsets.UTF_8);
+        LibraryManager library = new LibraryManager();
+        library.setOutput(new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+        library.addBook("INDEX", "IVAN ILYIN", 2000, "Fiction");
+        library.loadFromFile(file.toString());
+
+        assertEquals(1, library.allBooks().count());
+        assertEquals(1, library.search(1, "index").count());
+        assertEquals(1, library.search(2, "ivan i").count());
+        assertEquals(1, library.query(BookQuery.parse("название=INDEX")).count());
+    }
+}
@@ -0,0 +1,93 @@
+package library;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+//Тест параллельной загрузки: файл с дубликатами (внутри файла и уже имеющихся в библиотеке книг) и ошибочными строками,
+//загруженный в несколько потоков маленькими участками, дает те же книги, те же id и те же сообщения, что и последовательная загрузка
+class ParallelImportTest {
+    private static final String[] AUTHORS = {"Лев Толстой", "ЛЕВ ТОЛСТОЙ", "Федор Достоевский", "Jane Austen", "Автор 😀"};
+    private static final String[] GENRES = {"Роман", "Поэма", "Притча"};
+    private static final int LINES = 5_000;
+    //Участок в 4 КБ - около 60 строк, поэтому файл делится на десятки участков и дубликаты попадают в разные участки
+    private static final long CHUNK_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void parallelImportMatchesSequential() throws IOException {
+        Path file = catalogue();
+        Result sequential = load(file, 1);
+        assertTrue(sequential.output.contains("Пропущено дубликатов"), sequential.output);
+        assertTrue(sequential.output.contains("Ошибка формата данных в файле"), sequential.output);
+        for (int threads : new int[] {2, 4, 8}) {
+            Result parallel = load(file, threads);
+            assertEquals(sequential.books, parallel.books, "книги и id при загрузке в " + threads + " потоков");
+            assertEquals(sequential.output, parallel.output, "сообщения при загрузке в " + threads + " потоков");
+        }
+    }
+
+    //Метод load загружает файл в библиотеку с несколькими книгами дважды: во второй раз все книги файла - дубликаты
+    private static Result load(Path file, int threads) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        LibraryManager library = new LibraryManager();
+        library.setOutput(new PrintStream(output, true, StandardCharsets.UTF_8));
+        library.setImportThreads(threads);
+        library.setImportChunkSize(CHUNK_SIZE);
+        library.addBook("Книга 10", "Лев Толстой", 1810, "Роман");
+        library.addBook("книга 20", "лев толстой", 1820, "Поэма");
+        library.loadFromFile(file.toString());
+        library.loadFromFile(file.toString());
+        List<String> books = library.allBooks().stream().map(Book::toString).collect(Collectors.toList());
+        return new Result(books, output.toString(StandardCharsets.UTF_8));
+    }
+
+    //Метод catalogue записывает файл, в котором есть:
+    //  - дубликаты строк файла, отличающиеся регистром названия и автора, в том числе далеко друг от друга (в разных участках);
+    //  - дубликаты книг, добавленных в библиотеку до загрузки;
+    //  - строки с ошибкой в году или id (сообщения об ошибках) и строки с неверным числом полей (пропускаются молча);
+    //  - пустые строки, строки с переводом строки \r\n и названия с экранированным ';'
+    private Path catalogue() throws IOException {
+        Path file = directory.resolve("catalogue.txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < LINES; i++) {
+                int book = i % 7 == 3 ? i / 3 : i;
+                String title = (i % 2 == 0 ? "Книга " : "КНИГА ") + book + (book % 11 == 0 ? " \\; часть" : "");
+                String author = AUTHORS[book % AUTHORS.length];
+                String year = String.valueOf(1800 + book % 225);
+                String id = String.valueOf(i + 1);
+                if (i % 97 == 5) {
+                    year = "год" + i;
+                } else if (i % 89 == 7) {
+                    id = "x" + i;
+                }
+                if (i % 101 == 9) {
+                    writer.append(id).append(';').append(title).append(';').append(author).append('\n');
+                    continue;
+                }
+                writer.append(id).append(';').append(title).append(';').append(author).append(';').append(year)
+                        .append(';').append(GENRES[book % GENRES.length]).append(i % 13 == 0 ? "\r\n" : "\n");
+                if (i % 50 == 0) {
+                    writer.append('\n');
+                }
+            }
+        }
+        return file;
+    }
+
+    private record Result(List<String> books, String output) {
+    }
+}